@@ -0,0 +1,117 @@
+package com.zero.binarytreedraw.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.zero.binarytreedraw.R;
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 遍历动画过程中 onDraw 不应分配任何对象
+ * <p>
+ * 每帧之间用 seekTo 推进一步，覆盖步数变化后重画已遍历部分的路径；推进本身的分配由一段只推进、不绘制的
+ * 基准循环扣除。Dalvik 上用 Debug 的线程分配计数精确检查；ART 上那组接口不再计数，改用 API 23 起的运行时统计
+ * art.gc.objects-allocated，它统计整个进程，扣除基准后允许其他线程带来的少量噪声。
+ * API 21、22 的 ART 没有可用的计数，跳过而不是给出假的通过。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@RunWith(AndroidJUnit4.class)
+public class BiTreeViewAllocationTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    private static final int FRAMES = 100;
+
+    /**
+     * ART 的计数包括其他线程，扣除基准后允许的差值
+     */
+    private static final int ART_NOISE = 10;
+
+    @Test
+    public void onDraw_doesNotAllocate() {
+        final boolean art = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+        assumeTrue(!art || Build.VERSION.SDK_INT >= Build.VERSION_CODES.M);
+        final long[] allocations = new long[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getTargetContext();
+                View root = LayoutInflater.from(context).inflate(R.layout.activity_main, null);
+                BiTreeView view = (BiTreeView) root.findViewById(R.id.bitree_view);
+                ((ViewGroup) root).removeView(view);
+
+                view.setBiTree(new BiTree(BITREE_EXAMPLE));
+                view.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
+                        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+                view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+                Canvas canvas = new Canvas(Bitmap.createBitmap(view.getMeasuredWidth(),
+                        view.getMeasuredHeight(), Bitmap.Config.ARGB_8888));
+
+                //暂停后只由 seekTo 推进，不会走到最后一步而结束播放
+                view.beginPreOrderTraversal();
+                view.getTraversalPlayer().pause();
+                //先走一遍：录制缓存、算出完整的访问顺序
+                frames(view, canvas);
+
+                allocations[0] = countAllocations(art, view, null);
+                allocations[1] = countAllocations(art, view, canvas);
+            }
+        });
+
+        long drawing = allocations[1] - allocations[0];
+        String message = "allocated " + allocations[1] + " objects in " + FRAMES + " frames, "
+                + allocations[0] + " without drawing";
+        if (art) {
+            assertTrue(message, Math.abs(drawing) <= ART_NOISE);
+        } else {
+            assertEquals(message, 0, drawing);
+        }
+    }
+
+    /**
+     * canvas 为 null 时只推进不绘制，作为基准
+     */
+    private static long countAllocations(boolean art, BiTreeView view, Canvas canvas) {
+        if (art) {
+            long before = artObjectsAllocated();
+            frames(view, canvas);
+            return artObjectsAllocated() - before;
+        }
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        frames(view, canvas);
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+
+    private static void frames(BiTreeView view, Canvas canvas) {
+        int steps = view.getTraversalPlayer().getStepCount();
+        for (int i = 0; i < FRAMES; i++) {
+            view.seekTo(1 + i % (steps - 1));
+            if (canvas != null) {
+                view.onDraw(canvas);
+            }
+        }
+    }
+
+    private static long artObjectsAllocated() {
+        return Long.parseLong(Debug.getRuntimeStat("art.gc.objects-allocated"));
+    }
+}
@@ -1,29 +1,16 @@
 package com.zero.binarytreedraw;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 
-import com.zero.binarytreedraw.datastruture.BiTree;
-import com.zero.binarytreedraw.widget.AnimEndListener;
 import com.zero.binarytreedraw.widget.BiTreeView;
+import com.zero.binarytreedraw.widget.TraversalPlayer;
 
-public class MainActivity extends AppCompatActivity implements View.OnClickListener, AnimEndListener {
+public class MainActivity extends AppCompatActivity implements View.OnClickListener {
 
     private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
 
-    private static final int MSG_UPDATE_TRAVERSAL = 1;
-
-    private Handler mHandler = new Handler() {
-        @Override
-        public void handleMessage(Message msg) {
-            super.handleMessage(msg);
-            mBiTreeView.next();
-        }
-    };
-
     BiTreeView mBiTreeView;
 
     @Override
@@ -33,16 +20,17 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         mBiTreeView = (BiTreeView) findViewById(R.id.bitree_view);
 
-        BiTree biTree = new BiTree();
-        biTree.createBiTree(BITREE_EXAMPLE);
-
-        mBiTreeView.setBiTree(biTree);
-        mBiTreeView.setAnimEndListener(this);
+        //解析和布局在后台线程完成
+        mBiTreeView.loadBiTree(BITREE_EXAMPLE);
 
         findViewById(R.id.btn_pre).setOnClickListener(this);
         findViewById(R.id.btn_in).setOnClickListener(this);
         findViewById(R.id.btn_post).setOnClickListener(this);
         findViewById(R.id.btn_level).setOnClickListener(this);
+        findViewById(R.id.btn_pause).setOnClickListener(this);
+        findViewById(R.id.btn_rewind).setOnClickListener(this);
+        findViewById(R.id.btn_prev).setOnClickListener(this);
+        findViewById(R.id.btn_next).setOnClickListener(this);
     }
 
     @Override
@@ -63,12 +51,27 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             case R.id.btn_level:
                 mBiTreeView.beginLevelTraversal();
                 break;
-        }
-    }
 
-    @Override
-    public void animEnd(View view) {
-        int id = view.getId();
-        mHandler.sendEmptyMessage(MSG_UPDATE_TRAVERSAL);
+            case R.id.btn_pause:
+                TraversalPlayer player = mBiTreeView.getTraversalPlayer();
+                if (player.isPaused()) {
+                    player.resume();
+                } else {
+                    player.pause();
+                }
+                break;
+
+            case R.id.btn_rewind:
+                mBiTreeView.rewind();
+                break;
+
+            case R.id.btn_prev:
+                mBiTreeView.previous();
+                break;
+
+            case R.id.btn_next:
+                mBiTreeView.next();
+                break;
+        }
     }
 }
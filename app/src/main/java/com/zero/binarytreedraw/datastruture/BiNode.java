@@ -1,15 +0,0 @@
-package com.zero.binarytreedraw.datastruture;
-
-/**
- * @author zz
- * @email zzerostar@163.com
- * @date 2018/3/6
- */
-public class BiNode {
-
-    public String data;
-
-    public BiNode leftChild;
-
-    public BiNode rightChild;
-}
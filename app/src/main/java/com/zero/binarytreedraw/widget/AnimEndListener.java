@@ -3,6 +3,8 @@ package com.zero.binarytreedraw.widget;
 import android.view.View;
 
 /**
+ * 遍历播放到最后一步时回调，步与步之间由 {@link TraversalPlayer} 自动推进，不需要在这里调用 next
+ *
  * @author zz
  * @email zzerostar@163.com
  * @date 2018/3/18
@@ -0,0 +1,119 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * 把同一画笔的线段或点攒进固定大小的 float 数组，满了或结束时用一次 drawLines / drawPoints 画出
+ * <p>
+ * 一批之内画笔不变，调用方在 begin 之前设置好颜色和宽度；圆点用 ROUND 端点、宽度为直径的画笔画出即是实心圆。
+ * 缓冲区只在创建时分配一次，绘制过程中不分配对象。
+ * <p>
+ * begin 和 end 之间抛出异常时，调用方在 finally 中调用 {@link #cancel()}，否则下一次 begin 会认为上一批没有结束。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeDrawBatch {
+
+    /**
+     * 缓冲区的 float 个数，是 4 的倍数，能放整数条线段和整数个点
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final float[] mBuffer;
+
+    private int mSize;
+
+    private Canvas mCanvas;
+
+    private Paint mPaint;
+
+    private boolean mLines;
+
+    public BiTreeDrawBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BiTreeDrawBatch(int capacity) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("capacity must be at least 4: " + capacity);
+        }
+        mBuffer = new float[capacity & ~3];
+    }
+
+    public void beginLines(Canvas canvas, Paint paint) {
+        begin(canvas, paint, true);
+    }
+
+    public void beginPoints(Canvas canvas, Paint paint) {
+        begin(canvas, paint, false);
+    }
+
+    /**
+     * 加入 src[offset, offset + 4) 表示的线段 (x0, y0, x1, y1)
+     */
+    public void addLine(float[] src, int offset) {
+        if (mSize == mBuffer.length) {
+            flush();
+        }
+        float[] buffer = mBuffer;
+        buffer[mSize] = src[offset];
+        buffer[mSize + 1] = src[offset + 1];
+        buffer[mSize + 2] = src[offset + 2];
+        buffer[mSize + 3] = src[offset + 3];
+        mSize += 4;
+    }
+
+    public void addPoint(float x, float y) {
+        if (mSize == mBuffer.length) {
+            flush();
+        }
+        mBuffer[mSize] = x;
+        mBuffer[mSize + 1] = y;
+        mSize += 2;
+    }
+
+    /**
+     * 画出剩余的部分，之后可以开始下一批
+     */
+    public void end() {
+        try {
+            flush();
+        } finally {
+            cancel();
+        }
+    }
+
+    /**
+     * 丢弃还没画出的部分并结束这一批，没有进行中的一批时什么也不做
+     */
+    public void cancel() {
+        mSize = 0;
+        mCanvas = null;
+        mPaint = null;
+    }
+
+    private void begin(Canvas canvas, Paint paint, boolean lines) {
+        if (mCanvas != null) {
+            throw new IllegalStateException("previous batch not ended");
+        }
+        mCanvas = canvas;
+        mPaint = paint;
+        mLines = lines;
+        mSize = 0;
+    }
+
+    private void flush() {
+        if (mSize == 0) {
+            return;
+        }
+        if (mLines) {
+            mCanvas.drawLines(mBuffer, 0, mSize, mPaint);
+        } else {
+            mCanvas.drawPoints(mBuffer, 0, mSize, mPaint);
+        }
+        mSize = 0;
+    }
+}
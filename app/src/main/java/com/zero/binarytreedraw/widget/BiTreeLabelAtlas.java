@@ -0,0 +1,212 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+
+/**
+ * 预先光栅化的标签图集：一张 ALPHA_8 位图按固定大小分格，每格放一个标签，画标签变成一次 drawBitmap
+ * <p>
+ * 格子满了按 LRU 换出最久未用的标签，当前帧用过的格子不会被换出（同一帧里先画的内容会被覆盖），
+ * 这时以及标签比格子宽时返回 false，由调用方直接 drawText。
+ * 图集在之后的帧里会被改写，不能用在录制后反复回放的 Picture 中。
+ * 标签以原始字号光栅化，只适合缩放比例不超过 1 时使用。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeLabelAtlas {
+
+    public static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * 格子四周留的空白，缩小时滤波不会采到相邻的格子
+     */
+    private static final int PADDING = 1;
+
+    private final Bitmap mBitmap;
+
+    private final Canvas mCanvas;
+
+    private final Paint mTextPaint;
+
+    private final Paint mBlitPaint;
+
+    private final int cellWidth;
+
+    private final int cellHeight;
+
+    private final int columns;
+
+    private final int cells;
+
+    /**
+     * 格子按使用时间排成双向链表，头部最近使用，尾部是下一个换出的格子
+     */
+    private final int[] mPrev;
+
+    private final int[] mNext;
+
+    private int mHead;
+
+    private int mTail;
+
+    /**
+     * 格子中的标签编号，空格子为 -1
+     */
+    private final int[] mOwner;
+
+    private final long[] mUsedFrame;
+
+    /**
+     * 标签编号所在的格子，不在图集中为 -1
+     */
+    private int[] mCellOf = new int[0];
+
+    private BiTreeLabels mLabels;
+
+    private long mFrame;
+
+    private final Rect mSrc = new Rect();
+
+    private final RectF mDst = new RectF();
+
+    /**
+     * @param textPaint 画标签的画笔，复制后用于光栅化和着色，之后的修改不影响图集
+     * @param size      图集位图的边长
+     */
+    public BiTreeLabelAtlas(Paint textPaint, int size) {
+        //位图只有透明度，画出时用 mBlitPaint 的颜色着色
+        mTextPaint = new Paint(textPaint);
+        mTextPaint.setAlpha(255);
+        mBlitPaint = new Paint(textPaint);
+        mBlitPaint.setFilterBitmap(true);
+
+        Paint.FontMetrics fm = mTextPaint.getFontMetrics();
+        cellHeight = (int) Math.ceil(fm.bottom - fm.top) + 2 * PADDING;
+        //节点标签通常只有几个字符，更宽的标签直接画文字
+        cellWidth = cellHeight * 2;
+        columns = Math.max(1, size / cellWidth);
+        cells = columns * Math.max(1, size / cellHeight);
+
+        mBitmap = Bitmap.createBitmap(columns * cellWidth, (cells / columns) * cellHeight, Bitmap.Config.ALPHA_8);
+        mCanvas = new Canvas(mBitmap);
+
+        mPrev = new int[cells];
+        mNext = new int[cells];
+        mOwner = new int[cells];
+        mUsedFrame = new long[cells];
+        clear();
+    }
+
+    /**
+     * 换成另一张标签表时丢弃所有格子
+     */
+    public void setLabels(BiTreeLabels labels) {
+        if (mLabels != labels) {
+            mLabels = labels;
+            clear();
+        }
+    }
+
+    /**
+     * 每帧开始时调用一次，之后用到的格子在本帧内不会被换出
+     */
+    public void beginFrame() {
+        mFrame++;
+    }
+
+    /**
+     * 把编号为 id 的标签画在 drawText 起点 (x, y) 对应的位置
+     *
+     * @return 标签放不进图集时返回 false，没有画任何内容
+     */
+    public boolean draw(Canvas canvas, int id, float x, float y) {
+        BiTreeLabels labels = mLabels;
+        int w = labels.width[id] + 2 * PADDING;
+        int h = labels.height[id] + 2 * PADDING;
+        if (w > cellWidth || h > cellHeight) {
+            return false;
+        }
+        if (mCellOf.length <= id) {
+            int length = Math.max(labels.count, mCellOf.length * 2);
+            int from = mCellOf.length;
+            mCellOf = Arrays.copyOf(mCellOf, length);
+            Arrays.fill(mCellOf, from, length, -1);
+        }
+        int cell = mCellOf[id];
+        if (cell < 0) {
+            cell = mTail;
+            if (mUsedFrame[cell] == mFrame) {
+                //最久未用的格子也在本帧用过，所有格子都在用
+                return false;
+            }
+            if (mOwner[cell] >= 0) {
+                mCellOf[mOwner[cell]] = -1;
+            }
+            mOwner[cell] = id;
+            mCellOf[id] = cell;
+            rasterize(cell, id);
+        }
+        mUsedFrame[cell] = mFrame;
+        moveToHead(cell);
+
+        int cellLeft = (cell % columns) * cellWidth;
+        int cellTop = (cell / columns) * cellHeight;
+        mSrc.set(cellLeft, cellTop, cellLeft + w, cellTop + h);
+        float left = x + labels.left[id] - PADDING;
+        float top = y + labels.top[id] - PADDING;
+        mDst.set(left, top, left + w, top + h);
+        canvas.drawBitmap(mBitmap, mSrc, mDst, mBlitPaint);
+        return true;
+    }
+
+    public void clear() {
+        for (int c = 0; c < cells; c++) {
+            mPrev[c] = c - 1;
+            mNext[c] = c + 1 < cells ? c + 1 : -1;
+        }
+        mHead = 0;
+        mTail = cells - 1;
+        Arrays.fill(mOwner, -1);
+        Arrays.fill(mUsedFrame, -1);
+        Arrays.fill(mCellOf, -1);
+    }
+
+    private void rasterize(int cell, int id) {
+        int cellLeft = (cell % columns) * cellWidth;
+        int cellTop = (cell / columns) * cellHeight;
+        Canvas canvas = mCanvas;
+        canvas.save();
+        canvas.clipRect(cellLeft, cellTop, cellLeft + cellWidth, cellTop + cellHeight);
+        canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+        //文字范围的左上角对齐到格子内边距处
+        canvas.drawText(mLabels.text[id], cellLeft + PADDING - mLabels.left[id],
+                cellTop + PADDING - mLabels.top[id], mTextPaint);
+        canvas.restore();
+    }
+
+    private void moveToHead(int cell) {
+        if (cell == mHead) {
+            return;
+        }
+        int prev = mPrev[cell];
+        int next = mNext[cell];
+        mNext[prev] = next;
+        if (next >= 0) {
+            mPrev[next] = prev;
+        } else {
+            mTail = prev;
+        }
+        mPrev[cell] = -1;
+        mNext[cell] = mHead;
+        mPrev[mHead] = cell;
+        mHead = cell;
+    }
+}
@@ -0,0 +1,107 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 树中出现过的不同标签及其文字范围，每个不同的标签只量一次
+ * <p>
+ * 节点通过编号引用标签，10^5 个节点只有几千种标签时，getTextBounds 的次数与标签种数相同。
+ * 标签只增不减，树被修改后不再使用的标签仍然保留，换树时创建新的实例。
+ * 与布局表一样只在一个线程中使用：后台加载时在后台线程填好，交出后只由接收的线程使用。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeLabels {
+
+    private final Paint mPaint;
+
+    private final Rect mBounds = new Rect();
+
+    private final HashMap<String, Integer> mIds = new HashMap<>();
+
+    public String[] text = new String[16];
+
+    /**
+     * 文字以节点中心为中心时，drawText 的起点相对中心的偏移
+     */
+    public int[] dx = new int[16];
+
+    public int[] dy = new int[16];
+
+    /**
+     * 文字的实际范围相对 drawText 起点的位置和大小
+     */
+    public int[] left = new int[16];
+
+    public int[] top = new int[16];
+
+    public int[] width = new int[16];
+
+    public int[] height = new int[16];
+
+    public int count;
+
+    /**
+     * 所有标签的文字范围离节点中心最远的水平和垂直距离，多字符的标签会超出节点圆
+     */
+    public int extentX;
+
+    public int extentY;
+
+    /**
+     * @param paint 量文字用的画笔，之后只在本实例所在的线程中使用
+     */
+    public BiTreeLabels(Paint paint) {
+        mPaint = paint;
+    }
+
+    /**
+     * 标签的编号，第一次出现时量好它的范围
+     */
+    public int idOf(String label) {
+        Integer id = mIds.get(label);
+        if (id != null) {
+            return id;
+        }
+        if (count == text.length) {
+            int capacity = count * 2;
+            text = Arrays.copyOf(text, capacity);
+            dx = Arrays.copyOf(dx, capacity);
+            dy = Arrays.copyOf(dy, capacity);
+            left = Arrays.copyOf(left, capacity);
+            top = Arrays.copyOf(top, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+        }
+        Rect bounds = mBounds;
+        mPaint.getTextBounds(label, 0, label.length(), bounds);
+        int k = count++;
+        text[k] = label;
+        dx[k] = -bounds.width() / 2;
+        dy[k] = bounds.height() / 2;
+        left[k] = bounds.left;
+        top[k] = bounds.top;
+        width[k] = bounds.width();
+        height[k] = bounds.height();
+        extentX = Math.max(extentX, Math.max(Math.abs(dx[k] + left[k]), Math.abs(dx[k] + left[k] + width[k])));
+        extentY = Math.max(extentY, Math.max(Math.abs(dy[k] + top[k]), Math.abs(dy[k] + top[k] + height[k])));
+        mIds.put(label, k);
+        return k;
+    }
+
+    /**
+     * 填好布局表中 [from, to) 节点的标签编号
+     */
+    public void measure(BiTreeLayout layout, int[] labelIds, int from, int to) {
+        String[] labels = layout.labels;
+        for (int i = from; i < to; i++) {
+            labelIds[i] = idOf(labels[i]);
+        }
+    }
+}
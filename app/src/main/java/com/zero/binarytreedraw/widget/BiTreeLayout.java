@@ -0,0 +1,1023 @@
+package com.zero.binarytreedraw.widget;
+
+import com.zero.binarytreedraw.datastruture.BiNode;
+import com.zero.binarytreedraw.datastruture.BiTree;
+import com.zero.binarytreedraw.datastruture.CompactBiTree;
+import com.zero.binarytreedraw.datastruture.PersistentBiTree;
+
+import android.os.Build;
+import android.support.annotation.RequiresApi;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 二叉树布局表：每次 setBiTree 时计算一次，绘制和遍历只读取这里的数组
+ * <p>
+ * 节点按先序编号，父节点的编号总是小于子节点的编号，没有子节点 / 父节点时为 -1
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeLayout {
+
+    /**
+     * 按满二叉树排布，第 k 层的水平间距为 2^(树高 - k - 1) 个节点宽度
+     */
+    public static final int MODE_FULL = 0;
+
+    /**
+     * Reingold-Tilford 紧凑排布，宽度由树的实际形状决定
+     */
+    public static final int MODE_COMPACT = 1;
+
+    /**
+     * 满二叉树排布超过这个宽度时自动改用紧凑排布，避免 int 溢出
+     */
+    private static final long MAX_FULL_WIDTH = 1 << 24;
+
+    public int count;
+
+    public int root = -1;
+
+    public String[] labels;
+
+    public int[] left;
+
+    public int[] right;
+
+    public int[] parent;
+
+    public int[] depth;
+
+    public int[] x;
+
+    public int[] y;
+
+    /**
+     * 节点 i 与父节点之间连线的两个端点（已去掉圆内的部分），每个节点 4 个值：起点 x, y，终点 x, y
+     */
+    public float[] edges;
+
+    public int treeHeight;
+
+    public int width;
+
+    public int height;
+
+    /**
+     * 最近一次 {@link #replaceSubtree} 后画面发生变化的区域（布局坐标，含节点半径，不含超出节点的标签文字），
+     * dirtyLeft > dirtyRight 时为空
+     */
+    public int dirtyLeft;
+    public int dirtyTop;
+    public int dirtyRight;
+    public int dirtyBottom;
+
+    private final int mCircleRadius;
+    private final int xGap;
+    private final int yGap;
+    private final int topAndBottomOffset;
+
+    private int mode;
+
+    /**
+     * 紧凑排布使用：相对父节点的 x 偏移、轮廓线程及其偏移、每次合并设置的线程所在节点
+     */
+    private int[] rel;
+    private int[] thread;
+    private int[] threadOffset;
+    private int[] threadedBy;
+
+    /**
+     * 上一次排布是否是紧凑排布，只有这时 rel / thread 才能用于增量重排
+     */
+    private boolean placedCompact;
+
+    /**
+     * 每一层的节点数，增量修改时据此维护 treeHeight，不必扫描所有节点；整体计算后失效，第一次增量修改时重建
+     */
+    private int[] levelCounts = new int[0];
+    private boolean levelCountsValid;
+
+    /**
+     * 不为 null 时，节点数不少于它的阈值的树在这里并行展开和排布；只在 API 21 及以上创建
+     */
+    private BiTreeParallelLayout mParallel;
+
+    public BiTreeLayout(int circleRadius, int xGap, int yGap, int topAndBottomOffset) {
+        this.mCircleRadius = circleRadius;
+        this.xGap = xGap;
+        this.yGap = yGap;
+        this.topAndBottomOffset = topAndBottomOffset;
+        ensureCapacity(0);
+    }
+
+    public void setMode(int mode) {
+        checkMode(mode);
+        this.mode = mode;
+    }
+
+    /**
+     * 只接受 {@link #MODE_FULL} 和 {@link #MODE_COMPACT}
+     */
+    static void checkMode(int mode) {
+        if (mode != MODE_FULL && mode != MODE_COMPACT) {
+            throw new IllegalArgumentException("unknown layout mode: " + mode);
+        }
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * 节点数不少于 threshold 时，展开、合并轮廓、放置和连线都按子树拆分到 pool 上执行，
+     * 拆到小于 threshold 的子树时回到顺序实现；pool 为 null 时关闭
+     * <p>
+     * fork/join 的代码都在 {@link BiTreeParallelLayout} 中，低版本上不会加载
+     */
+    @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+    public void setParallelism(ForkJoinPool pool, int threshold) {
+        mParallel = pool == null ? null : new BiTreeParallelLayout(this, pool, threshold);
+    }
+
+    /**
+     * 所有布局共用的 ForkJoinPool
+     */
+    @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+    public static ForkJoinPool sharedPool() {
+        return BiTreeParallelLayout.sharedPool();
+    }
+
+    private boolean parallel(int nodeCount) {
+        return mParallel != null && nodeCount >= mParallel.threshold;
+    }
+
+    public void compute(BiTree biTree) {
+        levelCountsValid = false;
+        BiNode rootNode = biTree.getRoot();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && rootNode != null && parallel(rootNode.size)) {
+            mParallel.flatten(rootNode);
+        } else {
+            flatten(rootNode);
+        }
+        relayout();
+    }
+
+    /**
+     * CompactBiTree 本身就是先序编号，直接复制孩子编号和层
+     */
+    public void compute(CompactBiTree biTree) {
+        levelCountsValid = false;
+        count = biTree.getNodeCount();
+        root = biTree.getRoot();
+        treeHeight = biTree.height();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            labels[i] = biTree.getLabel(i);
+            left[i] = biTree.getLeftChild(i);
+            right[i] = biTree.getRightChild(i);
+            depth[i] = biTree.getLevel(i);
+            parent[i] = -1;
+        }
+        for (int i = 0; i < count; i++) {
+            if (left[i] >= 0) {
+                parent[left[i]] = i;
+            }
+            if (right[i] >= 0) {
+                parent[right[i]] = i;
+            }
+        }
+        relayout();
+    }
+
+    /**
+     * 不可变的树已知子树大小：左孩子编号为 i + 1，右孩子编号为 i + 1 + 左子树大小
+     */
+    public void compute(PersistentBiTree biTree) {
+        levelCountsValid = false;
+        count = biTree.getNodeCount();
+        root = count == 0 ? -1 : 0;
+        treeHeight = biTree.height();
+        ensureCapacity(count);
+        if (count > 0) {
+            PersistentBiTree.Node[] stack = new PersistentBiTree.Node[treeHeight + 1];
+            int[] indexStack = new int[treeHeight + 1];
+            int top = 0;
+            stack[top] = biTree.getRoot();
+            indexStack[top] = 0;
+            top++;
+            parent[0] = -1;
+            depth[0] = 1;
+            while (top > 0) {
+                top--;
+                PersistentBiTree.Node node = stack[top];
+                int i = indexStack[top];
+                labels[i] = node.data;
+                left[i] = node.leftChild == null ? -1 : i + 1;
+                right[i] = node.rightChild == null ? -1 : i + 1 + (node.leftChild == null ? 0 : node.leftChild.size);
+                if (right[i] >= 0) {
+                    parent[right[i]] = i;
+                    depth[right[i]] = depth[i] + 1;
+                    stack[top] = node.rightChild;
+                    indexStack[top] = right[i];
+                    top++;
+                }
+                if (left[i] >= 0) {
+                    parent[left[i]] = i;
+                    depth[left[i]] = depth[i] + 1;
+                    stack[top] = node.leftChild;
+                    indexStack[top] = left[i];
+                    top++;
+                }
+            }
+        }
+        relayout();
+    }
+
+    /**
+     * 节点结构不变时重新计算坐标，例如切换排布方式之后
+     */
+    public void relayout() {
+        boolean parallel = parallel(count) && root == 0;
+        if (mode == MODE_FULL && fullWidth() <= MAX_FULL_WIDTH) {
+            measure();
+            if (parallel && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                mParallel.placeFull();
+            } else {
+                place();
+            }
+            placedCompact = false;
+        } else {
+            if (parallel && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                mParallel.placeCompact();
+            } else {
+                placeCompact();
+            }
+            placedCompact = true;
+        }
+    }
+
+    /**
+     * 树上节点 parentIndex 的左 / 右子树换成 subtree 之后调用，参数与
+     * {@link com.zero.binarytreedraw.datastruture.BiTreeChangeListener#onSubtreeReplaced} 相同
+     * <p>
+     * 原地移动原子树之后的节点并展开新子树，然后只重排受影响的部分：
+     * 满二叉树排布在树高不变时只放置新子树；紧凑排布只重新合并新子树及其祖先，
+     * 整体平移量不变时只放置新子树、到根的路径以及挂在路径上、位置变化的子树。
+     * 除了移动之后的节点，编号修正、树高和变化区域只涉及被替换的子树和到根的路径，
+     * 树高或整体平移量变化时才退回整棵重排。位置发生变化的区域记在 dirty* 中。
+     */
+    public void replaceSubtree(int parentIndex, boolean isLeft, int index, int oldSize, BiNode subtree) {
+        boolean compact = !(mode == MODE_FULL && fullWidth(treeHeight) <= MAX_FULL_WIDTH);
+        int oldWidth = width;
+        int oldHeight = height;
+        resetDirty();
+
+        //被替换的子树原来所在的区域
+        ensureLevelCounts();
+        for (int i = index; i < index + oldSize; i++) {
+            addDirty(i, x[i], y[i]);
+            levelCounts[depth[i]]--;
+        }
+        if (compact && placedCompact) {
+            //祖先的合并设置的线程可能指向被替换的子树，在编号变化之前清掉
+            for (int a = parentIndex; a >= 0; a = parent[a]) {
+                clearThread(a);
+            }
+        }
+
+        int newSize = subtree == null ? 0 : subtree.size;
+        int delta = newSize - oldSize;
+        int tailFrom = index + oldSize;
+        int tailLength = count - tailFrom;
+        ensureCapacity(count + delta);
+        if (rel != null) {
+            ensureCompactCapacity();
+        }
+        shift(tailFrom, tailLength, delta, parentIndex);
+        count += delta;
+        if (parentIndex < 0) {
+            root = newSize > 0 ? 0 : -1;
+        } else if (isLeft) {
+            left[parentIndex] = newSize > 0 ? index : -1;
+        } else {
+            right[parentIndex] = newSize > 0 ? index : -1;
+        }
+        int oldTreeHeight = treeHeight;
+        if (newSize > 0) {
+            fill(subtree, index, parentIndex, parentIndex < 0 ? 1 : depth[parentIndex] + 1);
+            for (int i = index; i < index + newSize; i++) {
+                addLevel(depth[i]);
+                treeHeight = Math.max(treeHeight, depth[i]);
+            }
+        }
+        while (treeHeight > 0 && levelCounts[treeHeight] == 0) {
+            treeHeight--;
+        }
+
+        compact = !(mode == MODE_FULL && fullWidth() <= MAX_FULL_WIDTH);
+        if (parentIndex < 0 || compact != placedCompact || (!compact && treeHeight != oldTreeHeight)) {
+            relayout();
+            addDirtyAll(oldWidth, oldHeight);
+        } else if (!compact) {
+            placeFull(index, index + newSize);
+            for (int i = index; i < index + newSize; i++) {
+                addDirty(i, x[i], y[i]);
+            }
+        } else {
+            relayoutCompact(newSize > 0 ? index : parentIndex, index, index + newSize);
+        }
+    }
+
+    private void ensureLevelCounts() {
+        if (levelCountsValid) {
+            return;
+        }
+        levelCounts = new int[treeHeight + 2];
+        for (int i = 0; i < count; i++) {
+            levelCounts[depth[i]]++;
+        }
+        levelCountsValid = true;
+    }
+
+    private void addLevel(int d) {
+        if (d >= levelCounts.length) {
+            levelCounts = Arrays.copyOf(levelCounts, d * 2);
+        }
+        levelCounts[d]++;
+    }
+
+    private void resetDirty() {
+        dirtyLeft = Integer.MAX_VALUE;
+        dirtyTop = Integer.MAX_VALUE;
+        dirtyRight = Integer.MIN_VALUE;
+        dirtyBottom = Integer.MIN_VALUE;
+    }
+
+    /**
+     * 整棵重排之后新旧两个画面都要重画
+     */
+    private void addDirtyAll(int oldWidth, int oldHeight) {
+        dirtyLeft = Math.min(dirtyLeft, 0);
+        dirtyTop = Math.min(dirtyTop, 0);
+        dirtyRight = Math.max(dirtyRight, Math.max(oldWidth, width));
+        dirtyBottom = Math.max(dirtyBottom, Math.max(oldHeight, height));
+    }
+
+    /**
+     * 节点 i 以及它与父节点之间的连线
+     */
+    private void addDirty(int i, int nodeX, int nodeY) {
+        addDirtyPoint(nodeX, nodeY);
+        int p = parent[i];
+        if (p >= 0) {
+            addDirtyPoint(x[p], y[p]);
+        }
+    }
+
+    private void addDirtyPoint(int px, int py) {
+        dirtyLeft = Math.min(dirtyLeft, px - mCircleRadius);
+        dirtyTop = Math.min(dirtyTop, py - mCircleRadius);
+        dirtyRight = Math.max(dirtyRight, px + mCircleRadius);
+        dirtyBottom = Math.max(dirtyBottom, py + mCircleRadius);
+    }
+
+    /**
+     * 把 [from, from + length) 的节点整体移动 delta，并修正所有指向它们的编号
+     * <p>
+     * 先序编号下，[from, from + length) 之前的节点只有 path（被替换子树的父节点及其祖先）可能指向它们；
+     * 移动的节点的孩子和线程都在移动的范围内，父节点要么也在其中，要么在 path 上不受影响。
+     * 祖先的合并设置的线程已经清掉，其余合并的线程不会跨过被替换的子树。
+     */
+    private void shift(int from, int length, int delta, int path) {
+        if (delta == 0) {
+            return;
+        }
+        int to = from + delta;
+        System.arraycopy(labels, from, labels, to, length);
+        System.arraycopy(left, from, left, to, length);
+        System.arraycopy(right, from, right, to, length);
+        System.arraycopy(parent, from, parent, to, length);
+        System.arraycopy(depth, from, depth, to, length);
+        System.arraycopy(x, from, x, to, length);
+        System.arraycopy(y, from, y, to, length);
+        System.arraycopy(edges, from * 4, edges, to * 4, length * 4);
+        if (rel != null) {
+            System.arraycopy(rel, from, rel, to, length);
+            System.arraycopy(thread, from, thread, to, length);
+            System.arraycopy(threadOffset, from, threadOffset, to, length);
+            System.arraycopy(threadedBy, from, threadedBy, to, length);
+        }
+        //缩短时末尾空出的位置不再引用标签
+        for (int k = to + length; k < from + length; k++) {
+            labels[k] = null;
+        }
+
+        for (int i = to; i < to + length; i++) {
+            left[i] = shifted(left[i], from, delta);
+            right[i] = shifted(right[i], from, delta);
+            parent[i] = shifted(parent[i], from, delta);
+            if (rel != null) {
+                thread[i] = shifted(thread[i], from, delta);
+                threadedBy[i] = shifted(threadedBy[i], from, delta);
+            }
+        }
+        for (int a = path; a >= 0; a = parent[a]) {
+            left[a] = shifted(left[a], from, delta);
+            right[a] = shifted(right[a], from, delta);
+        }
+        if (root >= from) {
+            root += delta;
+        }
+    }
+
+    private static int shifted(int index, int from, int delta) {
+        return index >= from ? index + delta : index;
+    }
+
+    /**
+     * 把以 subtree 为根的子树按先序展开到 start 开始的位置
+     */
+    void fill(BiNode subtree, int start, int parentIndex, int rootDepth) {
+        BiNode[] stack = new BiNode[subtree.height + 1];
+        int[] parentStack = new int[subtree.height + 1];
+        boolean[] leftStack = new boolean[subtree.height + 1];
+        int top = 0;
+        stack[top] = subtree;
+        parentStack[top] = parentIndex;
+        top++;
+        int next = start;
+        while (top > 0) {
+            top--;
+            BiNode biNode = stack[top];
+            int p = parentStack[top];
+            int i = next++;
+            labels[i] = biNode.data;
+            left[i] = -1;
+            right[i] = -1;
+            parent[i] = p;
+            if (rel != null) {
+                thread[i] = -1;
+                threadedBy[i] = -1;
+            }
+            if (i == start) {
+                depth[i] = rootDepth;
+            } else {
+                depth[i] = depth[p] + 1;
+                if (leftStack[top]) {
+                    left[p] = i;
+                } else {
+                    right[p] = i;
+                }
+            }
+            if (biNode.rightChild != null) {
+                stack[top] = biNode.rightChild;
+                parentStack[top] = i;
+                leftStack[top] = false;
+                top++;
+            }
+            if (biNode.leftChild != null) {
+                stack[top] = biNode.leftChild;
+                parentStack[top] = i;
+                leftStack[top] = true;
+                top++;
+            }
+        }
+    }
+
+    private long fullWidth() {
+        return fullWidth(treeHeight);
+    }
+
+    private long fullWidth(int treeHeight) {
+        if (treeHeight > 40) {
+            return Long.MAX_VALUE;
+        }
+        long maxLeafCount = 1L << Math.max(treeHeight - 1, 0);
+        return mCircleRadius * 2 * maxLeafCount + 2 * xGap * (maxLeafCount + 1);
+    }
+
+    /**
+     * 用显式栈做先序展开，得到父子编号和深度
+     */
+    private void flatten(BiNode rootNode) {
+        count = 0;
+        root = -1;
+        treeHeight = 0;
+        if (rootNode == null) {
+            return;
+        }
+
+        BiNode[] stack = new BiNode[16];
+        int[] parentStack = new int[16];
+        boolean[] leftStack = new boolean[16];
+        int top = 0;
+        stack[top] = rootNode;
+        parentStack[top] = -1;
+        top++;
+
+        while (top > 0) {
+            top--;
+            BiNode biNode = stack[top];
+            int p = parentStack[top];
+            boolean isLeft = leftStack[top];
+
+            int i = count++;
+            ensureCapacity(count);
+            labels[i] = biNode.data;
+            left[i] = -1;
+            right[i] = -1;
+            parent[i] = p;
+            if (p < 0) {
+                root = i;
+                depth[i] = 1;
+            } else {
+                depth[i] = depth[p] + 1;
+                if (isLeft) {
+                    left[p] = i;
+                } else {
+                    right[p] = i;
+                }
+            }
+            if (depth[i] > treeHeight) {
+                treeHeight = depth[i];
+            }
+
+            if (top + 2 > stack.length) {
+                int newLength = stack.length * 2;
+                stack = Arrays.copyOf(stack, newLength);
+                parentStack = Arrays.copyOf(parentStack, newLength);
+                leftStack = Arrays.copyOf(leftStack, newLength);
+            }
+            //右孩子先入栈，保证左子树先出栈
+            if (biNode.rightChild != null) {
+                stack[top] = biNode.rightChild;
+                parentStack[top] = i;
+                leftStack[top] = false;
+                top++;
+            }
+            if (biNode.leftChild != null) {
+                stack[top] = biNode.leftChild;
+                parentStack[top] = i;
+                leftStack[top] = true;
+                top++;
+            }
+        }
+    }
+
+    private void measure() {
+        if (count == 0) {
+            width = 0;
+            height = 0;
+            return;
+        }
+        int maxLeafCount = (int) Math.pow(2, treeHeight - 1);
+
+        //最大的叶子数量 * 直径 + (最大叶子数量 + 1) * 间隔
+        width = mCircleRadius * 2 * maxLeafCount + 2 * xGap * (maxLeafCount + 1);
+
+        height = measureHeight();
+    }
+
+    int measureHeight() {
+        //树高度 * 直径 + (树高度 - 1) * 间隔 + offset
+        return mCircleRadius * 2 * treeHeight + yGap * (treeHeight - 1) + 2 * topAndBottomOffset;
+    }
+
+    private void place() {
+        placeFull(0, count);
+    }
+
+    /**
+     * 按满二叉树排布放置编号在 [from, to) 的节点，范围外的父节点必须已经放好
+     */
+    private void placeFull(int from, int to) {
+        placeFullNodes(from, to);
+        computeEdges(from, to);
+    }
+
+    void placeFullNodes(int from, int to) {
+        int yOffset = yGap + mCircleRadius * 2;
+        for (int i = from; i < to; i++) {
+            int p = parent[i];
+            if (p < 0) {
+                x[i] = width / 2;
+                y[i] = mCircleRadius + topAndBottomOffset;
+            } else {
+                int xOffset = (int) Math.pow(2, (treeHeight - depth[p] - 1)) * (mCircleRadius + xGap);
+                x[i] = left[p] == i ? x[p] - xOffset : x[p] + xOffset;
+                y[i] = y[p] + yOffset;
+            }
+        }
+    }
+
+    /**
+     * Reingold-Tilford 排布：自底向上把左右子树尽量靠拢，子树之间只比较相邻的轮廓，
+     * 轮廓走到较浅子树的底部时用线程接到较深子树的下一个轮廓节点上，总耗时线性
+     */
+    private void placeCompact() {
+        ensureCompactCapacity();
+        for (int i = 0; i < count; i++) {
+            thread[i] = -1;
+            rel[i] = 0;
+        }
+        //父节点编号总比子节点小，倒序即是自底向上
+        for (int i = count - 1; i >= 0; i--) {
+            merge(i);
+        }
+        placeCompactAbsolute();
+    }
+
+    /**
+     * 以 i 为根的子树形状变化后调用：只重排这棵子树以及它到根路径上的合并，
+     * 其余子树保持原有的相对位置和线程；整棵子树当作新节点，dirty* 只包含变化之后的位置
+     */
+    public void relayout(int i) {
+        resetDirty();
+        if (mode == MODE_FULL && fullWidth() <= MAX_FULL_WIDTH) {
+            int oldWidth = width;
+            int oldHeight = height;
+            measure();
+            place();
+            addDirtyAll(oldWidth, oldHeight);
+            return;
+        }
+        relayoutCompact(i, i, subtreeEnd(i));
+    }
+
+    /**
+     * 紧凑排布下重新合并 k 的子树和它的祖先，再放置位置可能变化的节点；[newFrom, newTo) 是新展开的节点，
+     * 它们原来的 x 没有意义，不计入 dirty*
+     */
+    private void relayoutCompact(int k, int newFrom, int newTo) {
+        ensureCompactCapacity();
+
+        //路径上的祖先在旧的合并中设置的线程可能指向已经变化的子树，先全部清掉
+        for (int a = parent[k]; a >= 0; a = parent[a]) {
+            clearThread(a);
+        }
+
+        int[] stack = new int[treeHeight + 1];
+        int[] post = new int[16];
+        int postCount = 0;
+        int top = 0;
+        stack[top++] = k;
+        while (top > 0) {
+            int cur = stack[--top];
+            thread[cur] = -1;
+            if (postCount == post.length) {
+                post = Arrays.copyOf(post, postCount * 2);
+            }
+            post[postCount++] = cur;
+            if (left[cur] >= 0) {
+                stack[top++] = left[cur];
+            }
+            if (right[cur] >= 0) {
+                stack[top++] = right[cur];
+            }
+        }
+        //先序的逆序同样是自底向上
+        for (int j = postCount - 1; j >= 0; j--) {
+            merge(post[j]);
+        }
+        for (int a = parent[k]; a >= 0; a = parent[a]) {
+            merge(a);
+        }
+        placeCompactChanged(k, newFrom, newTo);
+    }
+
+    /**
+     * 合并之后，根的左右轮廓给出整棵树的 x 范围；范围的左端没变时根的位置不变，
+     * 只需沿根到 k 的路径向下放置：路径上的节点逐个重算，挂在路径上的子树内部的相对位置没有变化，
+     * 根的 x 变了就整体平移，没变就跳过；k 的子树整体重新放置。左端变化时所有节点都平移，退回整棵放置。
+     */
+    private void placeCompactChanged(int k, int newFrom, int newTo) {
+        int oldWidth = width;
+        int oldHeight = height;
+        int margin = compactMargin();
+        int minX = contour(true);
+        int maxX = contour(false);
+        if (k == root || x[root] != margin - minX) {
+            placeCompactAbsolute();
+            addDirtyAll(oldWidth, oldHeight);
+            return;
+        }
+        width = maxX - minX + 2 * margin;
+        height = measureHeight();
+
+        int[] path = new int[treeHeight];
+        int pathCount = 0;
+        for (int a = k; a >= 0; a = parent[a]) {
+            path[pathCount++] = a;
+        }
+        //path[pathCount - 1] 是根，位置不变
+        int oldParentX = x[root];
+        for (int j = pathCount - 1; j >= 1; j--) {
+            int a = path[j];
+            int next = path[j - 1];
+            int nextOldX = x[next];
+            if (left[a] >= 0 && left[a] != next) {
+                moveSubtree(left[a], oldParentX);
+            }
+            if (right[a] >= 0 && right[a] != next) {
+                moveSubtree(right[a], oldParentX);
+            }
+            if (next != k) {
+                placeCompactNode(next);
+                if (x[next] != nextOldX || x[a] != oldParentX) {
+                    addDirtyPoint(nextOldX, y[next]);
+                    addDirtyPoint(oldParentX, y[a]);
+                    addDirty(next, x[next], y[next]);
+                    computeEdges(next, next + 1);
+                }
+            }
+            oldParentX = nextOldX;
+        }
+
+        int end = subtreeEnd(k);
+        addDirtyPoint(oldParentX, y[parent[k]]);
+        for (int i = k; i < end; i++) {
+            if (i < newFrom || i >= newTo) {
+                addDirtyPoint(x[i], y[i]);
+            }
+            placeCompactNode(i);
+            addDirty(i, x[i], y[i]);
+        }
+        computeEdges(k, end);
+    }
+
+    /**
+     * 父节点已经放好，c 的子树内部的相对位置不变，整体平移到新的位置；父节点移动过时连线也要重算
+     */
+    private void moveSubtree(int c, int oldParentX) {
+        int p = parent[c];
+        int shift = x[p] + rel[c] - x[c];
+        if (shift == 0) {
+            if (x[p] != oldParentX) {
+                addDirtyPoint(oldParentX, y[p]);
+                addDirty(c, x[c], y[c]);
+                computeEdges(c, c + 1);
+            }
+            return;
+        }
+        addDirtyPoint(oldParentX, y[p]);
+        int end = subtreeEnd(c);
+        for (int i = c; i < end; i++) {
+            addDirtyPoint(x[i], y[i]);
+            x[i] += shift;
+            addDirtyPoint(x[i], y[i]);
+        }
+        addDirtyPoint(x[p], y[p]);
+        computeEdges(c, end);
+    }
+
+    /**
+     * 以 i 为根的子树在先序中的结束位置：优先向右、没有右孩子时向左，走到叶子的下一个编号
+     */
+    private int subtreeEnd(int i) {
+        while (true) {
+            if (right[i] >= 0) {
+                i = right[i];
+            } else if (left[i] >= 0) {
+                i = left[i];
+            } else {
+                return i + 1;
+            }
+        }
+    }
+
+    /**
+     * 沿根的左（右）轮廓向下，轮廓节点是每一层最左（右）的节点，返回相对根的最小（最大）x
+     */
+    private int contour(boolean leftSide) {
+        int cur = root;
+        int offset = 0;
+        int extreme = 0;
+        while (true) {
+            int next = leftSide ? nextLeft(cur) : nextRight(cur);
+            if (next < 0) {
+                return extreme;
+            }
+            offset += leftSide ? nextLeftOffset(cur) : nextRightOffset(cur);
+            extreme = leftSide ? Math.min(extreme, offset) : Math.max(extreme, offset);
+            cur = next;
+        }
+    }
+
+    private void clearThread(int v) {
+        if (threadedBy[v] >= 0) {
+            thread[threadedBy[v]] = -1;
+            threadedBy[v] = -1;
+        }
+    }
+
+    void merge(int v) {
+        int minSep = 2 * (mCircleRadius + xGap);
+        int l = left[v];
+        int r = right[v];
+        threadedBy[v] = -1;
+        if (l < 0 && r < 0) {
+            return;
+        }
+        if (r < 0) {
+            rel[l] = -minSep / 2;
+            return;
+        }
+        if (l < 0) {
+            rel[r] = minSep / 2;
+            return;
+        }
+
+        //li / ri：左子树的右轮廓、右子树的左轮廓；lo / ro：左子树的左轮廓、右子树的右轮廓
+        //各自的 x 均相对于所在子树的根
+        int li = l, ri = r, lo = l, ro = r;
+        int liX = 0, riX = 0, loX = 0, roX = 0;
+        int d = minSep;
+        int nli;
+        int nri;
+        while (true) {
+            d = Math.max(d, liX - riX + minSep);
+            nli = nextRight(li);
+            nri = nextLeft(ri);
+            if (nli < 0 || nri < 0) {
+                break;
+            }
+            liX += nextRightOffset(li);
+            li = nli;
+            riX += nextLeftOffset(ri);
+            ri = nri;
+            loX += nextLeftOffset(lo);
+            lo = nextLeft(lo);
+            roX += nextRightOffset(ro);
+            ro = nextRight(ro);
+        }
+
+        rel[l] = -d / 2;
+        rel[r] = d - d / 2;
+
+        if (nli >= 0) {
+            //左子树更深，右子树右轮廓的底部接到左子树右轮廓的下一个节点
+            int target = rel[l] + liX + nextRightOffset(li);
+            thread[ro] = nli;
+            threadOffset[ro] = target - (rel[r] + roX);
+            threadedBy[v] = ro;
+        } else if (nri >= 0) {
+            //右子树更深，左子树左轮廓的底部接到右子树左轮廓的下一个节点
+            int target = rel[r] + riX + nextLeftOffset(ri);
+            thread[lo] = nri;
+            threadOffset[lo] = target - (rel[l] + loX);
+            threadedBy[v] = lo;
+        }
+    }
+
+    private int nextLeft(int v) {
+        return left[v] >= 0 ? left[v] : right[v] >= 0 ? right[v] : thread[v];
+    }
+
+    private int nextLeftOffset(int v) {
+        return left[v] >= 0 ? rel[left[v]] : right[v] >= 0 ? rel[right[v]] : threadOffset[v];
+    }
+
+    private int nextRight(int v) {
+        return right[v] >= 0 ? right[v] : left[v] >= 0 ? left[v] : thread[v];
+    }
+
+    private int nextRightOffset(int v) {
+        return right[v] >= 0 ? rel[right[v]] : left[v] >= 0 ? rel[left[v]] : threadOffset[v];
+    }
+
+    private void placeCompactAbsolute() {
+        int minX = 0;
+        int maxX = 0;
+        for (int i = 0; i < count; i++) {
+            placeCompactNode(i);
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+        }
+
+        int margin = compactMargin();
+        for (int i = 0; i < count; i++) {
+            x[i] += margin - minX;
+        }
+        width = count == 0 ? 0 : maxX - minX + 2 * margin;
+        height = count == 0 ? 0 : measureHeight();
+        computeEdges();
+    }
+
+    void placeCompactNode(int i) {
+        int p = parent[i];
+        if (p < 0) {
+            x[i] = 0;
+            y[i] = mCircleRadius + topAndBottomOffset;
+        } else {
+            x[i] = x[p] + rel[i];
+            y[i] = y[p] + yGap + mCircleRadius * 2;
+        }
+    }
+
+    /**
+     * 并行展开时初始化节点 i 的轮廓线程，与 {@link #fill} 相同
+     */
+    void clearCompactThread(int i) {
+        if (rel != null) {
+            thread[i] = -1;
+            threadedBy[i] = -1;
+        }
+    }
+
+    /**
+     * 合并节点 i 之前清掉它的线程和相对偏移
+     */
+    void resetCompact(int i) {
+        thread[i] = -1;
+        rel[i] = 0;
+    }
+
+    /**
+     * 紧凑排布时最左、最右节点与边界的距离
+     */
+    int compactMargin() {
+        return mCircleRadius + xGap;
+    }
+
+    /**
+     * 顺序合并占据 [from, to) 的整棵子树
+     */
+    void mergeRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            thread[i] = -1;
+            rel[i] = 0;
+        }
+        for (int i = to - 1; i >= from; i--) {
+            merge(i);
+        }
+    }
+
+    private void computeEdges() {
+        computeEdges(0, count);
+    }
+
+    void computeEdges(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int p = parent[i];
+            if (p < 0) {
+                continue;
+            }
+            int difX = x[i] - x[p];
+            int difY = y[i] - y[p];
+            int distance = (int) Math.sqrt((double) difX * difX + (double) difY * difY);
+            int offsetX = (int) ((long) difX * mCircleRadius / distance);
+            int offsetY = (int) ((long) difY * mCircleRadius / distance);
+            edges[4 * i] = x[p] + offsetX;
+            edges[4 * i + 1] = y[p] + offsetY;
+            edges[4 * i + 2] = x[i] - offsetX;
+            edges[4 * i + 3] = y[i] - offsetY;
+        }
+    }
+
+    void ensureCompactCapacity() {
+        if (rel != null && rel.length >= labels.length) {
+            return;
+        }
+        if (rel == null) {
+            rel = new int[labels.length];
+            thread = new int[labels.length];
+            threadOffset = new int[labels.length];
+            threadedBy = new int[labels.length];
+            return;
+        }
+        rel = Arrays.copyOf(rel, labels.length);
+        thread = Arrays.copyOf(thread, labels.length);
+        threadOffset = Arrays.copyOf(threadOffset, labels.length);
+        threadedBy = Arrays.copyOf(threadedBy, labels.length);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (labels != null && labels.length >= capacity) {
+            return;
+        }
+        int newLength = Math.max(16, labels == null ? capacity : Math.max(capacity, labels.length * 2));
+        if (labels == null) {
+            labels = new String[newLength];
+            left = new int[newLength];
+            right = new int[newLength];
+            parent = new int[newLength];
+            depth = new int[newLength];
+            x = new int[newLength];
+            y = new int[newLength];
+            edges = new float[newLength * 4];
+            return;
+        }
+        labels = Arrays.copyOf(labels, newLength);
+        left = Arrays.copyOf(left, newLength);
+        right = Arrays.copyOf(right, newLength);
+        parent = Arrays.copyOf(parent, newLength);
+        depth = Arrays.copyOf(depth, newLength);
+        x = Arrays.copyOf(x, newLength);
+        y = Arrays.copyOf(y, newLength);
+        edges = Arrays.copyOf(edges, newLength * 4);
+    }
+}
@@ -0,0 +1,244 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程解析树、计算布局和索引，完成后在主线程交出 {@link BiTreeSnapshot}
+ * <p>
+ * 同一时间只保留最新的一次加载：新的加载或 {@link #cancel()} 会中断正在进行的任务，
+ * 已经完成但还没交到主线程的结果也会被丢弃。除任务本身外，所有方法都只在主线程调用。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+class BiTreeLoader {
+
+    interface Callback {
+
+        void onLoaded(BiTreeSnapshot snapshot);
+
+        void onFailed(Exception e);
+    }
+
+    /**
+     * 在后台线程中得到解析好的树
+     */
+    interface Source {
+
+        BiTree parse() throws IOException;
+
+        /**
+         * 取消之后能否重新解析；reader 读过一部分或已经关闭时不能
+         */
+        boolean isReplayable();
+    }
+
+    /**
+     * 节点数不少于这个值时，布局按子树拆分到 {@link BiTreeLayout#sharedPool()} 上计算
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private static ExecutorService sExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private Future<?> mPending;
+
+    private Source mPendingSource;
+
+    private Callback mPendingCallback;
+
+    /**
+     * 每次加载或取消时加一，交付结果时与任务开始时的值不同则丢弃
+     */
+    private int mGeneration;
+
+    private static synchronized ExecutorService executor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "BiTreeLoader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    static Source source(final CharSequence src) {
+        return new Source() {
+            @Override
+            public BiTree parse() {
+                return new BiTree(src);
+            }
+
+            @Override
+            public boolean isReplayable() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 读取过程中检查中断，取消时尽快结束解析；读完后关闭 reader
+     */
+    static Source source(final Reader reader) {
+        return new Source() {
+            @Override
+            public BiTree parse() throws IOException {
+                Reader in = new InterruptibleReader(reader);
+                try {
+                    return new BiTree().createBiTree(in);
+                } finally {
+                    in.close();
+                }
+            }
+
+            @Override
+            public boolean isReplayable() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param layout    已按视图的参数创建好的空布局，之后只在后台线程使用
+     * @param textPaint 视图文字画笔的副本
+     */
+    void load(final Source source, final BiTreeLayout layout, final int circleRadius,
+              final Paint textPaint, final Callback callback) {
+        cancel();
+        final int generation = mGeneration;
+        mPendingSource = source;
+        mPendingCallback = callback;
+        mPending = executor().submit(new Runnable() {
+            @Override
+            public void run() {
+                BiTreeSnapshot snapshot = null;
+                Exception error = null;
+                try {
+                    snapshot = build(source, layout, circleRadius, textPaint);
+                } catch (InterruptedException | InterruptedIOException e) {
+                    return;
+                } catch (Exception e) {
+                    error = e;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                deliver(generation, snapshot, error, callback);
+            }
+        });
+    }
+
+    void cancel() {
+        mGeneration++;
+        if (mPending != null) {
+            mPending.cancel(true);
+            mPending = null;
+        }
+        mPendingSource = null;
+        mPendingCallback = null;
+    }
+
+    /**
+     * 视图离开窗口时调用：取消未完成的加载并返回它的来源，重新进入窗口后用它再加载一次；
+     * 来源不能重新解析时改为以 {@link CancellationException} 回调 onFailed 并返回 null，没有未完成的加载时返回 null
+     */
+    Source suspend() {
+        Source source = mPendingSource;
+        Callback callback = mPendingCallback;
+        if (source == null) {
+            return null;
+        }
+        cancel();
+        if (source.isReplayable()) {
+            return source;
+        }
+        callback.onFailed(new CancellationException("load cancelled when the view left the window"));
+        return null;
+    }
+
+    private void deliver(final int generation, final BiTreeSnapshot snapshot, final Exception error,
+                         final Callback callback) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mPending = null;
+                mPendingSource = null;
+                mPendingCallback = null;
+                if (error != null) {
+                    callback.onFailed(error);
+                } else {
+                    callback.onLoaded(snapshot);
+                }
+            }
+        });
+    }
+
+    private static BiTreeSnapshot build(Source source, BiTreeLayout layout, int circleRadius, Paint textPaint)
+            throws IOException, InterruptedException {
+        //解析时已经算好 depth / size / height
+        BiTree biTree = source.parse();
+        checkInterrupted();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            layout.setParallelism(BiTreeLayout.sharedPool(), PARALLEL_THRESHOLD);
+        }
+        long start = System.nanoTime();
+        layout.compute(biTree);
+        long layoutNanos = System.nanoTime() - start;
+        checkInterrupted();
+
+        return BiTreeSnapshot.create(biTree, layout, layoutNanos, circleRadius, textPaint);
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private static class InterruptibleReader extends FilterReader {
+
+        InterruptibleReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            }
+            return super.read(cbuf, off, len);
+        }
+    }
+}
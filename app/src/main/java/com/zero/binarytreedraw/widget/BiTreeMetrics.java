@@ -0,0 +1,98 @@
+package com.zero.binarytreedraw.widget;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 {@link BiTreeMetricsListener} 的数据记到 HDR 直方图中，用来看分位数
+ * <p>
+ * 直方图容量在创建时分配好，记录时不再分配对象；只能在主线程读写。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeMetrics implements BiTreeMetricsListener {
+
+    private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    public final Histogram drawTime = newTimeHistogram();
+
+    public final Histogram nodesDrawn = newCountHistogram();
+
+    public final Histogram nodesCulled = newCountHistogram();
+
+    public final Histogram layoutTime = newTimeHistogram();
+
+    public final Histogram stepLatency = newTimeHistogram();
+
+    /**
+     * 每次掉帧事件掉了多少帧，总数见 {@link #getDroppedFrames()}
+     */
+    public final Histogram droppedFrames = newCountHistogram();
+
+    private long mDroppedFrames;
+
+    private int mNodeCount;
+
+    private static Histogram newTimeHistogram() {
+        return new Histogram(1, MAX_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    private static Histogram newCountHistogram() {
+        return new Histogram(1, Integer.MAX_VALUE, SIGNIFICANT_DIGITS);
+    }
+
+    @Override
+    public void onFrame(BiTreeView view, long drawTimeNanos, int nodesDrawn, int nodesCulled) {
+        record(drawTime, drawTimeNanos);
+        record(this.nodesDrawn, nodesDrawn);
+        record(this.nodesCulled, nodesCulled);
+    }
+
+    @Override
+    public void onTreeLayout(BiTreeView view, long layoutTimeNanos, int nodeCount) {
+        record(layoutTime, layoutTimeNanos);
+        mNodeCount = nodeCount;
+    }
+
+    @Override
+    public void onTraversalStep(BiTreeView view, int step, long latencyNanos) {
+        record(stepLatency, latencyNanos);
+    }
+
+    @Override
+    public void onFramesDropped(BiTreeView view, int droppedFrames) {
+        record(this.droppedFrames, droppedFrames);
+        mDroppedFrames += droppedFrames;
+    }
+
+    public long getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * 最近一次布局时树的节点数，用来按规模区分数据
+     */
+    public int getNodeCount() {
+        return mNodeCount;
+    }
+
+    public void reset() {
+        drawTime.reset();
+        nodesDrawn.reset();
+        nodesCulled.reset();
+        layoutTime.reset();
+        stepLatency.reset();
+        droppedFrames.reset();
+        mDroppedFrames = 0;
+    }
+
+    private static void record(Histogram histogram, long value) {
+        //超出范围的值按上限记，0 按下限记
+        histogram.recordValue(Math.max(1, Math.min(value, histogram.getHighestTrackableValue())));
+    }
+}
@@ -0,0 +1,34 @@
+package com.zero.binarytreedraw.widget;
+
+/**
+ * BiTreeView 的性能数据回调，均在主线程调用
+ * <p>
+ * 只有设置了监听时 BiTreeView 才会计时，回调中不要做耗时操作。
+ * 需要分布统计时直接使用 {@link BiTreeMetrics}。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface BiTreeMetricsListener {
+
+    /**
+     * 一帧 onDraw 的耗时，以及与可见区域相交、被裁掉的节点数
+     */
+    void onFrame(BiTreeView view, long drawTimeNanos, int nodesDrawn, int nodesCulled);
+
+    /**
+     * 设置树或切换布局模式时计算布局的耗时
+     */
+    void onTreeLayout(BiTreeView view, long layoutTimeNanos, int nodeCount);
+
+    /**
+     * 从请求下一步到这一步第一次画到屏幕上的耗时
+     */
+    void onTraversalStep(BiTreeView view, int step, long latencyNanos);
+
+    /**
+     * 遍历动画期间两帧的间隔超过一个刷新周期时调用
+     */
+    void onFramesDropped(BiTreeView view, int droppedFrames);
+}
@@ -0,0 +1,120 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.SystemClock;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * 调试用的性能浮层，画在视图左上角，不随树平移缩放
+ * <p>
+ * 文字最多每 {@link #REFRESH_INTERVAL_MS} 毫秒重新生成一次，写进复用的 StringBuilder，
+ * 百分位也只在这时计算；其余的帧只画上次的文字，不分配对象，不影响浮层要显示的绘制耗时。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+class BiTreeMetricsOverlay {
+
+    private static final int LINE_COUNT = 6;
+
+    private static final long REFRESH_INTERVAL_MS = 500;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint mBackgroundPaint = new Paint();
+
+    private final float mPadding;
+
+    private final StringBuilder[] mLines = new StringBuilder[LINE_COUNT];
+
+    private float mWidth;
+
+    /**
+     * 上次生成文字的时间，-1 表示还没有生成过
+     */
+    private long mLastRefreshMs = -1;
+
+    BiTreeMetricsOverlay(float density) {
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(11 * density);
+        mTextPaint.setTypeface(Typeface.MONOSPACE);
+        mBackgroundPaint.setColor(0xAA000000);
+        mPadding = 4 * density;
+        for (int i = 0; i < LINE_COUNT; i++) {
+            mLines[i] = new StringBuilder(64);
+        }
+    }
+
+    void draw(Canvas canvas, BiTreeMetrics metrics) {
+        long now = SystemClock.uptimeMillis();
+        if (mLastRefreshMs < 0 || now - mLastRefreshMs >= REFRESH_INTERVAL_MS) {
+            mLastRefreshMs = now;
+            refresh(metrics);
+        }
+
+        float lineHeight = mTextPaint.getFontSpacing();
+        canvas.drawRect(0, 0, mWidth + mPadding * 2, lineHeight * LINE_COUNT + mPadding * 2, mBackgroundPaint);
+        float y = mPadding - mTextPaint.ascent();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            StringBuilder line = mLines[i];
+            canvas.drawText(line, 0, line.length(), mPadding, y, mTextPaint);
+            y += lineHeight;
+        }
+    }
+
+    private void refresh(BiTreeMetrics metrics) {
+        StringBuilder[] lines = mLines;
+        for (int i = 0; i < LINE_COUNT; i++) {
+            lines[i].setLength(0);
+        }
+        lines[0].append("nodes    ").append(metrics.getNodeCount());
+        times(lines[1].append("draw     "), metrics.drawTime);
+        counts(lines[2].append("visible  "), metrics.nodesDrawn);
+        counts(lines[2].append("  culled "), metrics.nodesCulled);
+        times(lines[3].append("layout   "), metrics.layoutTime);
+        times(lines[4].append("step     "), metrics.stepLatency);
+        lines[5].append("dropped  ").append(metrics.getDroppedFrames()).append(" frames");
+
+        float width = 0;
+        for (int i = 0; i < LINE_COUNT; i++) {
+            width = Math.max(width, mTextPaint.measureText(lines[i], 0, lines[i].length()));
+        }
+        mWidth = width;
+    }
+
+    private static void times(StringBuilder sb, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            sb.append('-');
+            return;
+        }
+        millis(sb.append("p50 "), histogram.getValueAtPercentile(50));
+        millis(sb.append(" p99 "), histogram.getValueAtPercentile(99));
+        millis(sb.append(" max "), histogram.getMaxValue());
+    }
+
+    private static void counts(StringBuilder sb, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            sb.append('-');
+            return;
+        }
+        sb.append("p50 ").append(histogram.getValueAtPercentile(50));
+    }
+
+    /**
+     * 纳秒写成保留两位小数的毫秒，不经过 String.format
+     */
+    private static void millis(StringBuilder sb, long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        long fraction = hundredths % 100;
+        sb.append(hundredths / 100).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction).append("ms");
+    }
+}
@@ -0,0 +1,312 @@
+package com.zero.binarytreedraw.widget;
+
+import android.os.Build;
+import android.support.annotation.RequiresApi;
+
+import com.zero.binarytreedraw.datastruture.BiNode;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link BiTreeLayout} 的 fork/join 部分：展开、合并轮廓、放置和连线按子树拆分到 pool 上执行，
+ * 拆到小于阈值的子树时回到布局表的顺序实现
+ * <p>
+ * ForkJoinPool 从 API 21 开始提供，这个类只在检查过版本之后才会被加载，布局表的其余部分在更低的版本上照常使用。
+ * <p>
+ * 先序编号下以 v 为根的子树正好占据 [v, v + 子树大小)，
+ * 左子树为 [v + 1, right[v])，右子树为 [right[v], 子树末尾)，据此按子树拆分任务
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+final class BiTreeParallelLayout {
+
+    private static ForkJoinPool sSharedPool;
+
+    private final BiTreeLayout layout;
+
+    private final ForkJoinPool pool;
+
+    final int threshold;
+
+    BiTreeParallelLayout(BiTreeLayout layout, ForkJoinPool pool, int threshold) {
+        this.layout = layout;
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * 所有布局共用的 pool，第一次使用时创建
+     */
+    static synchronized ForkJoinPool sharedPool() {
+        if (sSharedPool == null) {
+            sSharedPool = new ForkJoinPool();
+        }
+        return sSharedPool;
+    }
+
+    void flatten(BiNode rootNode) {
+        BiTreeLayout layout = this.layout;
+        layout.count = rootNode.size;
+        layout.root = 0;
+        layout.treeHeight = rootNode.height;
+        layout.ensureCapacity(layout.count);
+        pool.invoke(new FlattenTask(rootNode, 0, -1, 1));
+    }
+
+    void placeFull() {
+        pool.invoke(new PlaceTask(layout.root, layout.count, false));
+        pool.invoke(new RangeTask(0, layout.count, true, 0));
+    }
+
+    void placeCompact() {
+        BiTreeLayout layout = this.layout;
+        layout.ensureCompactCapacity();
+        pool.invoke(new MergeTask(layout.root, layout.count));
+        PlaceTask place = new PlaceTask(layout.root, layout.count, true);
+        pool.invoke(place);
+
+        int margin = layout.compactMargin();
+        pool.invoke(new RangeTask(0, layout.count, false, margin - place.minX));
+        layout.width = place.maxX - place.minX + 2 * margin;
+        layout.height = layout.measureHeight();
+        pool.invoke(new RangeTask(0, layout.count, true, 0));
+    }
+
+    /**
+     * 只有左右子树都不小于阈值时才 fork；否则小的一侧直接顺序处理，沿大的一侧循环向下，
+     * 这样单链或毛毛虫形状的树也不会让任务嵌套得很深
+     */
+    private final class FlattenTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiNode biNode;
+        private final int start;
+        private final int parentIndex;
+        private final int rootDepth;
+
+        FlattenTask(BiNode biNode, int start, int parentIndex, int rootDepth) {
+            this.biNode = biNode;
+            this.start = start;
+            this.parentIndex = parentIndex;
+            this.rootDepth = rootDepth;
+        }
+
+        @Override
+        protected void compute() {
+            BiTreeLayout layout = BiTreeParallelLayout.this.layout;
+            BiNode cur = biNode;
+            int i = start;
+            int p = parentIndex;
+            int d = rootDepth;
+            while (cur.size >= threshold) {
+                BiNode l = cur.leftChild;
+                BiNode r = cur.rightChild;
+                if (l == null && r == null) {
+                    break;
+                }
+                layout.labels[i] = cur.data;
+                layout.parent[i] = p;
+                layout.depth[i] = d;
+                layout.clearCompactThread(i);
+                layout.left[i] = l == null ? -1 : i + 1;
+                layout.right[i] = r == null ? -1 : i + 1 + (l == null ? 0 : l.size);
+                if (l != null && r != null && l.size >= threshold && r.size >= threshold) {
+                    invokeAll(new FlattenTask(l, layout.left[i], i, d + 1),
+                            new FlattenTask(r, layout.right[i], i, d + 1));
+                    return;
+                }
+                boolean leftBig = l != null && (r == null || l.size >= r.size);
+                BiNode small = leftBig ? r : l;
+                if (small != null) {
+                    layout.fill(small, leftBig ? layout.right[i] : layout.left[i], i, d + 1);
+                }
+                cur = leftBig ? l : r;
+                p = i;
+                i = leftBig ? layout.left[i] : layout.right[i];
+                d++;
+            }
+            layout.fill(cur, i, p, d);
+        }
+    }
+
+    /**
+     * 合并以 v 为根、占据 [v, end) 的子树：左右子树的合并互不影响，先完成再合并 v
+     */
+    private final class MergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int v;
+        private final int end;
+
+        MergeTask(int v, int end) {
+            this.v = v;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            BiTreeLayout layout = BiTreeParallelLayout.this.layout;
+            int[] left = layout.left;
+            int[] right = layout.right;
+            //沿大的一侧向下时经过的节点，回来时倒序合并
+            int[] path = new int[16];
+            int pathCount = 0;
+            int cur = v;
+            int curEnd = end;
+            while (true) {
+                int l = left[cur];
+                int r = right[cur];
+                int leftEnd = r >= 0 ? r : curEnd;
+                int leftSize = l < 0 ? 0 : leftEnd - l;
+                int rightSize = r < 0 ? 0 : curEnd - r;
+                if (curEnd - cur < threshold || (l < 0 && r < 0)) {
+                    layout.mergeRange(cur, curEnd);
+                    break;
+                }
+                layout.resetCompact(cur);
+                if (leftSize >= threshold && rightSize >= threshold) {
+                    invokeAll(new MergeTask(l, r), new MergeTask(r, curEnd));
+                    layout.merge(cur);
+                    break;
+                }
+                if (pathCount == path.length) {
+                    path = Arrays.copyOf(path, pathCount * 2);
+                }
+                path[pathCount++] = cur;
+                if (leftSize >= rightSize) {
+                    if (r >= 0) {
+                        layout.mergeRange(r, curEnd);
+                    }
+                    cur = l;
+                    curEnd = leftEnd;
+                } else {
+                    if (l >= 0) {
+                        layout.mergeRange(l, leftEnd);
+                    }
+                    cur = r;
+                }
+            }
+            for (int k = pathCount - 1; k >= 0; k--) {
+                layout.merge(path[k]);
+            }
+        }
+    }
+
+    /**
+     * 放置 [v, end) 内的节点，v 的父节点必须已经放好；紧凑排布同时统计 x 的范围
+     */
+    private final class PlaceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int v;
+        private final int end;
+        private final boolean compact;
+
+        int minX;
+        int maxX;
+
+        PlaceTask(int v, int end, boolean compact) {
+            this.v = v;
+            this.end = end;
+            this.compact = compact;
+        }
+
+        @Override
+        protected void compute() {
+            int[] left = layout.left;
+            int[] right = layout.right;
+            int cur = v;
+            int curEnd = end;
+            while (true) {
+                int l = left[cur];
+                int r = right[cur];
+                if (curEnd - cur < threshold || (l < 0 && r < 0)) {
+                    place(cur, curEnd);
+                    return;
+                }
+                place(cur, cur + 1);
+                int leftEnd = r >= 0 ? r : curEnd;
+                int leftSize = l < 0 ? 0 : leftEnd - l;
+                int rightSize = r < 0 ? 0 : curEnd - r;
+                if (leftSize >= threshold && rightSize >= threshold) {
+                    PlaceTask leftTask = new PlaceTask(l, r, compact);
+                    PlaceTask rightTask = new PlaceTask(r, curEnd, compact);
+                    invokeAll(leftTask, rightTask);
+                    minX = Math.min(minX, Math.min(leftTask.minX, rightTask.minX));
+                    maxX = Math.max(maxX, Math.max(leftTask.maxX, rightTask.maxX));
+                    return;
+                }
+                if (leftSize >= rightSize) {
+                    if (r >= 0) {
+                        place(r, curEnd);
+                    }
+                    cur = l;
+                    curEnd = leftEnd;
+                } else {
+                    if (l >= 0) {
+                        place(l, leftEnd);
+                    }
+                    cur = r;
+                }
+            }
+        }
+
+        private void place(int from, int to) {
+            if (!compact) {
+                layout.placeFullNodes(from, to);
+                return;
+            }
+            int[] x = layout.x;
+            for (int i = from; i < to; i++) {
+                layout.placeCompactNode(i);
+                minX = Math.min(minX, x[i]);
+                maxX = Math.max(maxX, x[i]);
+            }
+        }
+    }
+
+    /**
+     * 与结构无关的逐节点处理，直接按编号二分：平移 x，或在坐标全部确定后计算连线
+     */
+    private final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final boolean edges;
+        private final int shift;
+
+        RangeTask(int from, int to, boolean edges, int shift) {
+            this.from = from;
+            this.to = to;
+            this.edges = edges;
+            this.shift = shift;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                if (edges) {
+                    layout.computeEdges(from, to);
+                } else {
+                    int[] x = layout.x;
+                    for (int i = from; i < to; i++) {
+                        x[i] += shift;
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, edges, shift), new RangeTask(mid, to, edges, shift));
+        }
+    }
+}
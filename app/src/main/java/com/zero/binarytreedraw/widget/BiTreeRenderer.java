@@ -0,0 +1,356 @@
+package com.zero.binarytreedraw.widget;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.zero.binarytreedraw.R;
+
+/**
+ * 按布局表画树：连线、节点、文字和已遍历的部分，{@link BiTreeView} 与 {@link BiTreeSurfaceView} 共用
+ * <p>
+ * 连线和节点按颜色分批，用 drawLines / drawPoints 一次画出一批。
+ * 画笔和缓冲区都是可变的，一个实例只在一个线程中使用：BiTreeView 在主线程，BiTreeSurfaceView 在绘制线程。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeRenderer {
+
+    /**
+     * 细节层次：缩得很小时节点画成点，再大一些画不带描边和文字的圆，正常大小画完整节点
+     */
+    public static final int LOD_POINT = 0;
+    public static final int LOD_SIMPLE = 1;
+    public static final int LOD_FULL = 2;
+
+    private static final float POINT_RADIUS_PX = 3f;
+    private static final float MIN_TEXT_SIZE_PX = 7f;
+    private static final float MIN_EDGE_SPACING_PX = 4f;
+
+    private final int mCircleRadius;
+    private final int yGap;
+    private final int textSize;
+
+    private int commonColor;
+    private int traversalColor;
+
+    private final Paint mLinePaint;
+    private final Paint mCircleFillPaint;
+    private final Paint mCircleStrokePaint;
+    private final Paint mTextPaint;
+
+    private final Paint mPointPaint;
+
+    /**
+     * 节点描边：宽度为外径的圆点，再在上面画内径的填充圆点，结果与 drawCircle 填充加描边相同
+     */
+    private final Paint mRingPaint;
+
+    private final BiTreeDrawBatch mBatch = new BiTreeDrawBatch();
+
+    /**
+     * 已遍历部分先筛出与裁剪区域相交的节点，再整批绘制
+     */
+    private int[] mBatchNodes = new int[0];
+
+    private int mLod = LOD_FULL;
+
+    private int mDrawnNodeCount;
+
+    private float mScale = 1f;
+
+    private BiTreeLayout mLayout;
+    private BiTreeSpatialIndex mSpatialIndex;
+    private BiTreeLabels mLabels;
+    private int[] mLabelIds;
+
+    /**
+     * 不为 null 且缩放比例不超过 1 时，标签从图集中贴出
+     */
+    private BiTreeLabelAtlas mAtlas;
+
+    public BiTreeRenderer(Resources res, int circleRadius, int yGap, int textSize) {
+        this.mCircleRadius = circleRadius;
+        this.yGap = yGap;
+        this.textSize = textSize;
+        commonColor = res.getColor(R.color.app_common_color);
+        traversalColor = res.getColor(R.color.home_nav_sort_color);
+
+        mLinePaint = new Paint();
+        mLinePaint.setStyle(Paint.Style.STROKE);
+        mLinePaint.setStrokeWidth(2);
+        mLinePaint.setAntiAlias(true);
+        mLinePaint.setColor(commonColor);
+
+        mCircleFillPaint = new Paint();
+        mCircleFillPaint.setStyle(Paint.Style.FILL);
+        mCircleFillPaint.setColor(commonColor);
+
+        mCircleStrokePaint = new Paint();
+        mCircleStrokePaint.setStyle(Paint.Style.STROKE);
+        mCircleStrokePaint.setStrokeWidth(2);
+        mCircleStrokePaint.setAntiAlias(true);
+        mCircleStrokePaint.setColor(res.getColor(R.color.dark_blue));
+        mCircleStrokePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        mTextPaint = new Paint();
+        mTextPaint.setColor(res.getColor(R.color.text_color_white));
+        mTextPaint.setTextSize(textSize);
+
+        //点的宽度就是节点直径，画出来即是实心圆
+        mPointPaint = new Paint();
+        mPointPaint.setStyle(Paint.Style.STROKE);
+        mPointPaint.setStrokeWidth(mCircleRadius * 2);
+        mPointPaint.setStrokeCap(Paint.Cap.ROUND);
+        mPointPaint.setAntiAlias(true);
+        mPointPaint.setColor(commonColor);
+
+        mRingPaint = new Paint(mPointPaint);
+        mRingPaint.setStrokeWidth(mCircleRadius * 2 + mCircleStrokePaint.getStrokeWidth());
+        mRingPaint.setColor(mCircleStrokePaint.getColor());
+    }
+
+    /**
+     * 之后的绘制使用的树，只保存引用；树变化或数组重新分配后需要再次调用
+     */
+    public void setTree(BiTreeLayout layout, BiTreeSpatialIndex index, BiTreeLabels labels, int[] labelIds) {
+        mLayout = layout;
+        mSpatialIndex = index;
+        mLabels = labels;
+        mLabelIds = labelIds;
+        if (mAtlas != null) {
+            mAtlas.setLabels(labels);
+        }
+        if (mBatchNodes.length < layout.count) {
+            mBatchNodes = new int[layout.count];
+        }
+    }
+
+    /**
+     * 使用标签图集，传 null 时直接画文字；图集会在之后的帧里改写，录制 Picture 时不要使用
+     */
+    public void setLabelAtlas(BiTreeLabelAtlas atlas) {
+        mAtlas = atlas;
+        if (atlas != null && mLabels != null) {
+            atlas.setLabels(mLabels);
+        }
+    }
+
+    public void setNodeColors(int commonColor, int traversalColor) {
+        this.commonColor = commonColor;
+        this.traversalColor = traversalColor;
+    }
+
+    /**
+     * 量文字偏移用的画笔，在其他线程中使用时先复制一份
+     */
+    public Paint getTextPaint() {
+        return mTextPaint;
+    }
+
+    public float getLineWidth() {
+        return mLinePaint.getStrokeWidth();
+    }
+
+    /**
+     * 每帧绘制前调用一次，按缩放比例选择细节层次，返回选中的层次
+     */
+    public int updateLod(float scale) {
+        mScale = scale;
+        if (mAtlas != null) {
+            mAtlas.beginFrame();
+        }
+        if (mCircleRadius * scale < POINT_RADIUS_PX) {
+            mLod = LOD_POINT;
+        } else if (textSize * scale < MIN_TEXT_SIZE_PX) {
+            mLod = LOD_SIMPLE;
+        } else {
+            mLod = LOD_FULL;
+        }
+        return mLod;
+    }
+
+    public int getLod() {
+        return mLod;
+    }
+
+    /**
+     * 上一次 {@link #drawTree} 画出的节点数，统计帧数据时不必再查询一次
+     */
+    public int getDrawnNodeCount() {
+        return mDrawnNodeCount;
+    }
+
+    /**
+     * 画出与 area（布局坐标）相交的连线和节点，都用普通颜色
+     */
+    public void drawTree(Canvas canvas, Rect area) {
+        BiTreeSpatialIndex index = mSpatialIndex;
+        index.query(area.left, area.top, area.right, area.bottom);
+        mDrawnNodeCount = index.nodeCount;
+
+        if (isEdgeVisible()) {
+            drawEdges(canvas, index.edges, index.edgeCount, commonColor);
+        }
+        drawNodes(canvas, index.nodes, index.nodeCount, commonColor);
+    }
+
+    /**
+     * 画出访问顺序中 [from, to) 的节点和它们的入边，只画与 cull 相交的部分；
+     * 第 step 步（下标 step - 1）是正在渐变的节点，透明度为 alpha，单独绘制
+     */
+    public void drawVisitedRange(Canvas canvas, int[] order, int from, int to, int step, int alpha, Rect cull) {
+        int last = step - 1;
+        int end = last >= from && last < to ? last : to;
+        BiTreeLayout layout = mLayout;
+        BiTreeSpatialIndex index = mSpatialIndex;
+        int[] batch = mBatchNodes;
+        int n = 0;
+        if (isEdgeVisible()) {
+            for (int k = from; k < end; k++) {
+                int i = order[k];
+                if (layout.parent[i] >= 0 && index.edgeIntersects(i, cull.left, cull.top, cull.right, cull.bottom)) {
+                    batch[n++] = i;
+                }
+            }
+            drawEdges(canvas, batch, n, traversalColor);
+            n = 0;
+        }
+        for (int k = from; k < end; k++) {
+            int i = order[k];
+            if (index.intersects(i, cull.left, cull.top, cull.right, cull.bottom)) {
+                batch[n++] = i;
+            }
+        }
+        drawNodes(canvas, batch, n, traversalColor);
+        if (end < to) {
+            drawVisited(canvas, order[last], alpha, cull);
+        }
+    }
+
+    /**
+     * 单独画一个已遍历的节点及其入边，节点的透明度为 alpha
+     */
+    public void drawVisited(Canvas canvas, int i, int alpha, Rect cull) {
+        Rect r = cull;
+        int p = mLayout.parent[i];
+        if (p >= 0 && isEdgeVisible() && mSpatialIndex.edgeIntersects(i, r.left, r.top, r.right, r.bottom)) {
+            traversalLine(canvas, i);
+        }
+        if (mSpatialIndex.intersects(i, r.left, r.top, r.right, r.bottom)) {
+            traversalNode(canvas, i, alpha);
+        }
+    }
+
+    /**
+     * 层间距在屏幕上太小时连线挤成一团，不再画；与 {@link #getLod()} 一样随缩放变化，缓存录制结果时一并作为键
+     */
+    public boolean isEdgeVisible() {
+        return (yGap + mCircleRadius * 2) * mScale >= MIN_EDGE_SPACING_PX;
+    }
+
+    /**
+     * 边 parent[i] -> i 用同一种颜色一次画出
+     */
+    private void drawEdges(Canvas canvas, int[] nodes, int count, int color) {
+        if (count == 0) {
+            return;
+        }
+        float[] edges = mLayout.edges;
+        mLinePaint.setColor(color);
+        mBatch.beginLines(canvas, mLinePaint);
+        try {
+            for (int k = 0; k < count; k++) {
+                mBatch.addLine(edges, 4 * nodes[k]);
+            }
+            mBatch.end();
+        } finally {
+            mBatch.cancel();
+        }
+    }
+
+    /**
+     * 同一种颜色的节点依次画描边、填充和文字，每一类只切换一次画笔
+     */
+    private void drawNodes(Canvas canvas, int[] nodes, int count, int color) {
+        if (count == 0) {
+            return;
+        }
+        float diameter = mCircleRadius * 2;
+        if (mLod == LOD_FULL) {
+            drawPoints(canvas, mRingPaint, nodes, count);
+            //描边跨在圆周两侧，填充只露出描边以内的部分
+            diameter -= mCircleStrokePaint.getStrokeWidth();
+        }
+        mPointPaint.setStrokeWidth(diameter);
+        mPointPaint.setColor(color);
+        drawPoints(canvas, mPointPaint, nodes, count);
+        if (mLod == LOD_FULL) {
+            for (int k = 0; k < count; k++) {
+                drawLabel(canvas, nodes[k]);
+            }
+        }
+    }
+
+    /**
+     * 每个节点画一个圆点；中途出错时丢弃这一批，之后的绘制仍能开始新的一批
+     */
+    private void drawPoints(Canvas canvas, Paint paint, int[] nodes, int count) {
+        int[] x = mLayout.x;
+        int[] y = mLayout.y;
+        mBatch.beginPoints(canvas, paint);
+        try {
+            for (int k = 0; k < count; k++) {
+                mBatch.addPoint(x[nodes[k]], y[nodes[k]]);
+            }
+            mBatch.end();
+        } finally {
+            mBatch.cancel();
+        }
+    }
+
+    private void traversalLine(Canvas canvas, int i) {
+        mLinePaint.setColor(traversalColor);
+
+        float[] edges = mLayout.edges;
+        canvas.drawLine(edges[4 * i], edges[4 * i + 1], edges[4 * i + 2], edges[4 * i + 3], mLinePaint);
+
+    }
+
+    private void traversalNode(Canvas canvas, int i, int alpha) {
+        int x = mLayout.x[i];
+        int y = mLayout.y[i];
+        mCircleFillPaint.setColor(traversalColor);
+        mCircleFillPaint.setAlpha(alpha);
+        if (mLod == LOD_POINT) {
+            mPointPaint.setStrokeWidth(mCircleRadius * 2);
+            mPointPaint.setColor(mCircleFillPaint.getColor());
+            canvas.drawPoint(x, y, mPointPaint);
+            return;
+        }
+        canvas.drawCircle(x, y, mCircleRadius, mCircleFillPaint);
+        if (mLod != LOD_FULL) {
+            return;
+        }
+        canvas.drawCircle(x, y, mCircleRadius, mCircleStrokePaint);
+
+        drawLabel(canvas, i);
+
+    }
+
+    /**
+     * 文字偏移按标签在设置树时已经量好；放大时图集中的位图会发虚，直接画文字
+     */
+    private void drawLabel(Canvas canvas, int i) {
+        int id = mLabelIds[i];
+        float x = mLayout.x[i] + mLabels.dx[id];
+        float y = mLayout.y[i] + mLabels.dy[id];
+        if (mAtlas != null && mScale <= 1f && mAtlas.draw(canvas, id, x, y)) {
+            return;
+        }
+        canvas.drawText(mLayout.labels[i], x, y, mTextPaint);
+    }
+}
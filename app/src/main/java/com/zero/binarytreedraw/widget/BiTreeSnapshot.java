@@ -0,0 +1,60 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Paint;
+
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+/**
+ * 后台线程算好的一棵树：解析结果、布局表、空间索引和标签
+ * <p>
+ * 在后台线程创建并填好，通过主线程 Handler 交给 BiTreeView 后，后台不再持有任何引用，
+ * 之后只由主线程读写（例如切换布局模式时在原地重新布局）。
+ * 按版本缓存在 PersistentBiTree 上的快照会被多次使用，视图不会修改它的布局。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+final class BiTreeSnapshot {
+
+    final BiTree biTree;
+
+    final BiTreeLayout layout;
+
+    final BiTreeSpatialIndex index;
+
+    final BiTreeLabels labels;
+
+    /**
+     * 每个节点的标签在 labels 中的编号
+     */
+    final int[] labelIds;
+
+    /**
+     * 计算布局所用的时间，交给主线程后汇报给 {@link BiTreeMetricsListener}
+     */
+    final long layoutNanos;
+
+    BiTreeSnapshot(BiTree biTree, BiTreeLayout layout, BiTreeSpatialIndex index,
+                   BiTreeLabels labels, int[] labelIds, long layoutNanos) {
+        this.biTree = biTree;
+        this.layout = layout;
+        this.index = index;
+        this.labels = labels;
+        this.labelIds = labelIds;
+        this.layoutNanos = layoutNanos;
+    }
+
+    /**
+     * 在已经算好的布局上建立空间索引并量好标签，textPaint 之后归快照所有
+     */
+    static BiTreeSnapshot create(BiTree biTree, BiTreeLayout layout, long layoutNanos,
+                                 int circleRadius, Paint textPaint) {
+        BiTreeSpatialIndex index = new BiTreeSpatialIndex();
+        index.build(layout, circleRadius);
+        BiTreeLabels labels = new BiTreeLabels(textPaint);
+        int[] labelIds = new int[layout.count];
+        labels.measure(layout, labelIds, 0, layout.count);
+        return new BiTreeSnapshot(biTree, layout, index, labels, labelIds, layoutNanos);
+    }
+}
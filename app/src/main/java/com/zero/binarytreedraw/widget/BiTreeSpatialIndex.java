@@ -0,0 +1,188 @@
+package com.zero.binarytreedraw.widget;
+
+import java.util.Arrays;
+
+/**
+ * 布局表上的空间索引：同一层的节点 y 相同，按层分桶，桶内按 x 排序，
+ * 查询时只看与矩形相交的层，在层内二分出 x 范围
+ * <p>
+ * 边归到子节点所在的层，用该层最大的水平跨度放宽二分范围后再逐条判断
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeSpatialIndex {
+
+    private BiTreeLayout mLayout;
+
+    private int radius;
+
+    /**
+     * 第 d 层（从 1 开始）的节点位于 sorted[rowStart[d - 1], rowStart[d])
+     */
+    private int[] rowStart = new int[1];
+
+    private int[] rowY = new int[1];
+
+    private int[] rowMaxDx = new int[1];
+
+    private int[] sorted = new int[0];
+
+    private int[] sortedX = new int[0];
+
+    private int[] stack = new int[0];
+
+    /**
+     * 最近一次查询的结果，按层从上到下
+     */
+    public int[] nodes = new int[0];
+
+    public int nodeCount;
+
+    /**
+     * 最近一次查询的边，存子节点编号，边为 parent[i] -> i
+     */
+    public int[] edges = new int[0];
+
+    public int edgeCount;
+
+    public void build(BiTreeLayout layout, int circleRadius) {
+        mLayout = layout;
+        radius = circleRadius;
+        int count = layout.count;
+        int rows = layout.treeHeight;
+
+        if (rowStart.length < rows + 1) {
+            rowStart = new int[rows + 1];
+            rowY = new int[rows + 1];
+            rowMaxDx = new int[rows + 1];
+        }
+        if (sorted.length < count) {
+            sorted = new int[count];
+            sortedX = new int[count];
+            nodes = new int[count];
+            edges = new int[count];
+        }
+        if (stack.length < rows + 1) {
+            stack = new int[rows + 1];
+        }
+        Arrays.fill(rowStart, 0, rows + 1, 0);
+        Arrays.fill(rowMaxDx, 0, rows + 1, 0);
+        nodeCount = 0;
+        edgeCount = 0;
+        if (count == 0) {
+            return;
+        }
+
+        //先统计每层节点数，得到每层的起始位置
+        for (int i = 0; i < count; i++) {
+            rowStart[layout.depth[i]]++;
+        }
+        for (int d = 1; d <= rows; d++) {
+            rowStart[d] += rowStart[d - 1];
+        }
+
+        //中序遍历下同一层的节点从左到右出现，按这个顺序放入各层即已排好序
+        //先借用 rowY 记录各层的写入位置
+        int[] fill = rowY;
+        for (int d = 0; d < rows; d++) {
+            fill[d] = rowStart[d];
+        }
+        int top = 0;
+        int cur = layout.root;
+        while (cur >= 0 || top > 0) {
+            while (cur >= 0) {
+                stack[top++] = cur;
+                cur = layout.left[cur];
+            }
+            cur = stack[--top];
+            int row = layout.depth[cur] - 1;
+            int pos = fill[row]++;
+            sorted[pos] = cur;
+            sortedX[pos] = layout.x[cur];
+            int p = layout.parent[cur];
+            if (p >= 0) {
+                rowMaxDx[row] = Math.max(rowMaxDx[row], Math.abs(layout.x[cur] - layout.x[p]));
+            }
+            cur = layout.right[cur];
+        }
+
+        for (int d = 0; d < rows; d++) {
+            rowY[d] = layout.y[sorted[rowStart[d]]];
+        }
+    }
+
+    /**
+     * 查询与矩形相交的节点和边，结果放在 {@link #nodes} 和 {@link #edges} 中
+     */
+    public void query(int left, int top, int right, int bottom) {
+        nodeCount = 0;
+        edgeCount = 0;
+        BiTreeLayout layout = mLayout;
+        if (layout == null || layout.count == 0) {
+            return;
+        }
+
+        for (int row = 0; row < layout.treeHeight; row++) {
+            int y = rowY[row];
+            int from = rowStart[row];
+            int to = rowStart[row + 1];
+
+            if (y + radius >= top && y - radius <= bottom) {
+                int i = lowerBound(from, to, left - radius);
+                for (; i < to && sortedX[i] - radius <= right; i++) {
+                    nodes[nodeCount++] = sorted[i];
+                }
+            }
+
+            if (row == 0) {
+                continue;
+            }
+            int parentY = rowY[row - 1];
+            if (y >= top && parentY <= bottom) {
+                int maxDx = rowMaxDx[row];
+                int i = lowerBound(from, to, left - maxDx);
+                for (; i < to && sortedX[i] - maxDx <= right; i++) {
+                    int child = sorted[i];
+                    int parentX = layout.x[layout.parent[child]];
+                    int minX = Math.min(parentX, sortedX[i]);
+                    int maxX = Math.max(parentX, sortedX[i]);
+                    if (maxX >= left && minX <= right) {
+                        edges[edgeCount++] = child;
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean intersects(int i, int left, int top, int right, int bottom) {
+        int x = mLayout.x[i];
+        int y = mLayout.y[i];
+        return x + radius >= left && x - radius <= right && y + radius >= top && y - radius <= bottom;
+    }
+
+    /**
+     * 边 parent[i] -> i 的外接矩形是否与矩形相交
+     */
+    public boolean edgeIntersects(int i, int left, int top, int right, int bottom) {
+        int p = mLayout.parent[i];
+        int minX = Math.min(mLayout.x[p], mLayout.x[i]);
+        int maxX = Math.max(mLayout.x[p], mLayout.x[i]);
+        return maxX >= left && minX <= right && mLayout.y[i] >= top && mLayout.y[p] <= bottom;
+    }
+
+    private int lowerBound(int from, int to, int x) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedX[mid] < x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
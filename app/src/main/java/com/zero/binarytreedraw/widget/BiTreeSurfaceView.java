@@ -0,0 +1,726 @@
+package com.zero.binarytreedraw.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import com.zero.binarytreedraw.R;
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+import java.io.Reader;
+
+/**
+ * 在独立的绘制线程中画树，遍历播放和 {@link AnimEndListener} 的约定与 {@link BiTreeView} 相同，支持相同的 xml 属性
+ * <p>
+ * 布局在主线程（或经 {@link #loadBiTree} 在后台线程）算好后，以 {@link BiTreeSnapshot} 整体交给绘制线程，
+ * 之后主线程只读布局表计算访问顺序，不再修改它，也不使用其中的空间索引；树被修改后需要重新调用 setBiTree。
+ * 播放仍由主线程的 {@link TraversalPlayer} 推进，每一步只把步数和透明度交给绘制线程；触摸事件只投递平移和缩放的增量。
+ * 绘制线程在状态变化时画一帧，期间到达的多次变化合并到下一帧，帧率不受主线程负载影响。
+ * <p>
+ * 不使用 BiTreeView 的 Picture 缓存，每帧直接绘制可见部分和已遍历的部分。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    private static final String TAG = "BiTreeSurfaceView";
+
+    private static final float MIN_SCALE = 0.01f;
+    private static final float MAX_SCALE = 4f;
+
+    private int mCircleRadius;
+    private int xGap;
+    private int yGap;
+    private int topAndBottomOffset;
+
+    private int textSize;
+
+    private int layoutMode = BiTreeLayout.MODE_FULL;
+
+    /**
+     * 主线程量文字用的画笔，与绘制线程的画笔分开
+     */
+    private Paint mMeasurePaint;
+
+    private RenderLoop mRenderLoop;
+
+    /**
+     * 当前交给绘制线程的树，没有树时为 null
+     */
+    private BiTreeSnapshot mSnapshot;
+
+    private int state = TraversalSequence.NONE;
+
+    private int stepLimit;
+
+    /**
+     * 当前遍历的访问顺序，在主线程中逐步算出，绘制线程只读取已经交给它的步数以内的部分
+     */
+    private TraversalSequence mSequence;
+
+    private final TraversalPlayer mPlayer = new TraversalPlayer(new TraversalPlayer.Target() {
+        @Override
+        public void onPlaybackStep(int step, int alpha) {
+            //在交给绘制线程之前算好，之后不再改写这一部分
+            mSequence.ensure(step);
+            stepLimit = step;
+            mRenderLoop.setStep(step, alpha);
+        }
+
+        @Override
+        public void onPlaybackEnd() {
+            if (mAnimEndListener != null) {
+                mAnimEndListener.animEnd(BiTreeSurfaceView.this);
+            }
+        }
+    });
+
+    private AnimEndListener mAnimEndListener;
+
+    private TreeLoadListener mTreeLoadListener;
+
+    private BiTreeLoader mLoader;
+
+    /**
+     * 离开窗口时被挂起的加载，重新进入窗口后再次发起
+     */
+    private BiTreeLoader.Source mSuspendedLoad;
+
+    private ScaleGestureDetector mScaleDetector;
+
+    private float lastFocusX;
+    private float lastFocusY;
+
+    /**
+     * 与绘制线程的缩放比例保持一致，只用来限制缩放范围
+     */
+    private float mScale = 1f;
+
+    public BiTreeSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public BiTreeSurfaceView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public BiTreeSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs);
+    }
+
+    private void init(AttributeSet attrs) {
+        Resources res = getResources();
+        topAndBottomOffset = res.getDimensionPixelOffset(R.dimen.bitree_top_bottom_offset);
+
+        if (attrs != null) {
+            TypedArray ta = res.obtainAttributes(attrs, R.styleable.BiTreeView);
+            mCircleRadius = ta.getDimensionPixelSize(R.styleable.BiTreeView_circle_radius, res.getDimensionPixelSize(R.dimen.bitree_radius_default));
+            xGap = ta.getDimensionPixelSize(R.styleable.BiTreeView_x_gap, res.getDimensionPixelSize(R.dimen.bitree_x_gap_default));
+            yGap = ta.getDimensionPixelSize(R.styleable.BiTreeView_y_gap, res.getDimensionPixelSize(R.dimen.bitree_y_gap_default));
+            textSize = ta.getDimensionPixelSize(R.styleable.BiTreeView_text_size, res.getDimensionPixelSize(R.dimen.bitree_text_size_default));
+            layoutMode = ta.getInt(R.styleable.BiTreeView_tree_layout, BiTreeLayout.MODE_FULL);
+            ta.recycle();
+        }
+
+        BiTreeRenderer renderer = new BiTreeRenderer(res, mCircleRadius, yGap, textSize);
+        mMeasurePaint = new Paint(renderer.getTextPaint());
+        mRenderLoop = new RenderLoop(renderer);
+        getHolder().addCallback(this);
+
+        mScaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoom(mScale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+    }
+
+    /**
+     * 在主线程计算布局；之后对 biTree 的修改不会反映到视图上
+     */
+    public void setBiTree(BiTree biTree) {
+        cancelLoad();
+        BiTreeLayout layout = newLayout();
+        long start = System.nanoTime();
+        layout.compute(biTree);
+        setSnapshot(BiTreeSnapshot.create(biTree, layout, System.nanoTime() - start, mCircleRadius, mMeasurePaint));
+    }
+
+    /**
+     * 在后台线程解析序列并计算布局，完成后整体替换当前的树，替换前仍显示原来的树
+     */
+    public void loadBiTree(CharSequence src) {
+        load(BiTreeLoader.source(src));
+    }
+
+    /**
+     * 同 {@link #loadBiTree(CharSequence)}，reader 在后台线程读完后关闭
+     */
+    public void loadBiTree(Reader reader) {
+        load(BiTreeLoader.source(reader));
+    }
+
+    public void cancelLoad() {
+        mSuspendedLoad = null;
+        if (mLoader != null) {
+            mLoader.cancel();
+        }
+    }
+
+    private void load(BiTreeLoader.Source source) {
+        mSuspendedLoad = null;
+        if (mLoader == null) {
+            mLoader = new BiTreeLoader();
+        }
+        mLoader.load(source, newLayout(), mCircleRadius, new Paint(mMeasurePaint), new BiTreeLoader.Callback() {
+            @Override
+            public void onLoaded(BiTreeSnapshot snapshot) {
+                setSnapshot(snapshot);
+                if (mTreeLoadListener != null) {
+                    mTreeLoadListener.onTreeLoaded(BiTreeSurfaceView.this);
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                Log.w(TAG, "load tree failed", e);
+                if (mTreeLoadListener != null) {
+                    mTreeLoadListener.onTreeLoadFailed(BiTreeSurfaceView.this, e);
+                }
+            }
+        });
+    }
+
+    private BiTreeLayout newLayout() {
+        BiTreeLayout layout = new BiTreeLayout(mCircleRadius, xGap, yGap, topAndBottomOffset);
+        layout.setMode(layoutMode);
+        return layout;
+    }
+
+    private void setSnapshot(BiTreeSnapshot snapshot) {
+        mSnapshot = snapshot;
+        mPlayer.stop();
+        state = TraversalSequence.NONE;
+        stepLimit = 0;
+        mRenderLoop.setSnapshot(snapshot);
+        requestLayout();
+    }
+
+    /**
+     * 重新计算布局，当前的遍历会停止
+     *
+     * @param mode {@link BiTreeLayout#MODE_FULL} 或 {@link BiTreeLayout#MODE_COMPACT}
+     */
+    public void setLayoutMode(int mode) {
+        BiTreeLayout.checkMode(mode);
+        if (layoutMode == mode) {
+            return;
+        }
+        layoutMode = mode;
+        if (mSnapshot != null && mSnapshot.biTree != null) {
+            setBiTree(mSnapshot.biTree);
+        }
+    }
+
+    /**
+     * 以视图中心为不动点缩放
+     */
+    public void setScale(float scale) {
+        zoom(scale, getWidth() / 2f, getHeight() / 2f);
+    }
+
+    public float getScale() {
+        return mScale;
+    }
+
+    private void zoom(float scale, float focusX, float focusY) {
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+        mRenderLoop.zoom(scale / mScale, focusX, focusY);
+        mScale = scale;
+    }
+
+    public void setNodeColors(int commonColor, int traversalColor) {
+        mRenderLoop.setNodeColors(commonColor, traversalColor);
+    }
+
+    /**
+     * 缩放比例不超过 1 时从预先光栅化的图集中贴出标签，代替逐个 drawText，默认关闭
+     */
+    public void setLabelAtlasEnabled(boolean enabled) {
+        mRenderLoop.setLabelAtlasEnabled(enabled);
+    }
+
+    public void setAnimDuring(int during) {
+        mPlayer.setStepDuration(during);
+    }
+
+    /**
+     * 遍历的播放控制：速度、每帧节点数、跳转、暂停 / 继续以及按帧推进的模式
+     */
+    public TraversalPlayer getTraversalPlayer() {
+        return mPlayer;
+    }
+
+    public int getNodeCount() {
+        return mSnapshot == null ? 0 : mSnapshot.layout.count;
+    }
+
+    public int getStepLimit() {
+        return stepLimit;
+    }
+
+    /**
+     * 立即前进一步，播放中会从新的位置继续
+     */
+    public void next() {
+        mPlayer.seekTo(stepLimit + 1);
+    }
+
+    /**
+     * 立即后退一步，已经算出的访问顺序直接复用
+     */
+    public void previous() {
+        mPlayer.seekTo(stepLimit - 1);
+    }
+
+    /**
+     * 拖动到第 step 步，超出范围时取第一步或最后一步
+     */
+    public void seekTo(int step) {
+        mPlayer.seekTo(step);
+    }
+
+    /**
+     * 回到第一步
+     */
+    public void rewind() {
+        mPlayer.seekTo(1);
+    }
+
+    public void beginPreOrderTraversal() {
+        beginTraversal(TraversalSequence.PRE_ORDER);
+    }
+
+    public void beginInOrderTraversal() {
+        beginTraversal(TraversalSequence.IN_ORDER);
+    }
+
+    public void beginPostOrderTraversal() {
+        beginTraversal(TraversalSequence.POST_ORDER);
+    }
+
+    public void beginLevelTraversal() {
+        beginTraversal(TraversalSequence.LEVEL_ORDER);
+    }
+
+    /**
+     * 每次遍历使用新的 TraversalSequence，绘制线程读取的访问顺序不会被改写；
+     * 访问顺序随播放在主线程中补算，已经交出的前缀保持不变
+     */
+    private void beginTraversal(int traversalState) {
+        if (mSnapshot == null) {
+            return;
+        }
+        state = traversalState;
+        TraversalSequence sequence = new TraversalSequence();
+        sequence.compute(mSnapshot.layout, traversalState);
+        mSequence = sequence;
+        stepLimit = 0;
+        mRenderLoop.setSequence(sequence.order, sequence.length);
+        mPlayer.start(sequence.length);
+    }
+
+    public void setAnimEndListener(AnimEndListener animEndListener) {
+        mAnimEndListener = animEndListener;
+    }
+
+    public void setTreeLoadListener(TreeLoadListener treeLoadListener) {
+        mTreeLoadListener = treeLoadListener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mSnapshot != null && mSnapshot.layout.count > 0) {
+            setMeasuredDimension(resolveSize(mSnapshot.layout.width, widthMeasureSpec),
+                    resolveSize(mSnapshot.layout.height, heightMeasureSpec));
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        mScaleDetector.onTouchEvent(event);
+
+        //用所有手指的中心点计算平移，抬起的手指不计入
+        int action = event.getActionMasked();
+        int skipIndex = action == MotionEvent.ACTION_POINTER_UP ? event.getActionIndex() : -1;
+        float sumX = 0;
+        float sumY = 0;
+        int pointerCount = 0;
+        for (int i = 0; i < event.getPointerCount(); i++) {
+            if (i == skipIndex) {
+                continue;
+            }
+            sumX += event.getX(i);
+            sumY += event.getY(i);
+            pointerCount++;
+        }
+        if (pointerCount == 0) {
+            return true;
+        }
+        float focusX = sumX / pointerCount;
+        float focusY = sumY / pointerCount;
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                lastFocusX = focusX;
+                lastFocusY = focusY;
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                mRenderLoop.pan(focusX - lastFocusX, focusY - lastFocusY);
+                lastFocusX = focusX;
+                lastFocusY = focusY;
+                break;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        mRenderLoop.start(holder);
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        mRenderLoop.setSize(width, height);
+    }
+
+    /**
+     * 返回前绘制线程已经退出，不会再使用这个 Surface
+     */
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        mRenderLoop.stop();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mSuspendedLoad != null) {
+            load(mSuspendedLoad);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //不可见时不再推进，重新显示后可以 resume
+        mPlayer.pause();
+        //后台加载持有 View 的回调，离开窗口时先取消，重新进入窗口后再加载
+        mSuspendedLoad = mLoader == null ? null : mLoader.suspend();
+    }
+
+    /**
+     * 绘制线程：主线程通过加锁的方法投递状态并唤醒它，它取走状态后在锁外画一帧
+     * <p>
+     * 平移和缩放都是对 translate 的仿射变换 t -> k * t + b，多次投递合并成一次；
+     * 视图的平移、缩放在 Surface 重建之间保留。
+     */
+    private static final class RenderLoop implements Runnable {
+
+        private final Object mLock = new Object();
+
+        private final BiTreeRenderer mRenderer;
+
+        //以下由 mLock 保护
+
+        private Thread mThread;
+
+        private SurfaceHolder mHolder;
+
+        private boolean mRunning;
+
+        private boolean mFrameRequested;
+
+        private int mPendingWidth;
+        private int mPendingHeight;
+
+        private BiTreeSnapshot mPendingSnapshot;
+        private boolean mSnapshotChanged;
+
+        private int[] mPendingOrder;
+        private int mPendingLength;
+        private int mPendingStep;
+        private int mPendingAlpha;
+
+        private float mPendingZoom = 1f;
+        private float mPendingDx;
+        private float mPendingDy;
+
+        private int mPendingCommonColor;
+        private int mPendingTraversalColor;
+        private boolean mColorsChanged;
+
+        private boolean mPendingAtlasEnabled;
+        private boolean mAtlasChanged;
+
+        //以下只在绘制线程中使用
+
+        private BiTreeSnapshot mSnapshot;
+
+        private int[] mOrder;
+        private int mLength;
+        private int mStep;
+        private int mAlpha;
+
+        private int mWidth;
+        private int mHeight;
+
+        private boolean mAtlasEnabled;
+
+        private float mScale = 1f;
+        private float mTranslateX;
+        private float mTranslateY;
+        private boolean mTranslateInitialized;
+
+        private final Rect mVisibleRect = new Rect();
+
+        RenderLoop(BiTreeRenderer renderer) {
+            mRenderer = renderer;
+        }
+
+        void start(SurfaceHolder holder) {
+            synchronized (mLock) {
+                mHolder = holder;
+                mRunning = true;
+                mFrameRequested = true;
+                mThread = new Thread(this, TAG);
+                mThread.start();
+            }
+        }
+
+        void stop() {
+            Thread thread;
+            synchronized (mLock) {
+                mRunning = false;
+                mLock.notifyAll();
+                thread = mThread;
+                mThread = null;
+            }
+            if (thread == null) {
+                return;
+            }
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void setSize(int width, int height) {
+            synchronized (mLock) {
+                mPendingWidth = width;
+                mPendingHeight = height;
+                requestFrame();
+            }
+        }
+
+        void setSnapshot(BiTreeSnapshot snapshot) {
+            synchronized (mLock) {
+                mPendingSnapshot = snapshot;
+                mSnapshotChanged = true;
+                mPendingOrder = null;
+                mPendingLength = 0;
+                mPendingStep = 0;
+                requestFrame();
+            }
+        }
+
+        void setSequence(int[] order, int length) {
+            synchronized (mLock) {
+                mPendingOrder = order;
+                mPendingLength = length;
+                mPendingStep = 0;
+                requestFrame();
+            }
+        }
+
+        void setStep(int step, int alpha) {
+            synchronized (mLock) {
+                mPendingStep = step;
+                mPendingAlpha = alpha;
+                requestFrame();
+            }
+        }
+
+        void pan(float dx, float dy) {
+            synchronized (mLock) {
+                mPendingDx += dx;
+                mPendingDy += dy;
+                requestFrame();
+            }
+        }
+
+        /**
+         * 以 (focusX, focusY) 为不动点把缩放比例乘以 factor：t -> focus - (focus - t) * factor
+         */
+        void zoom(float factor, float focusX, float focusY) {
+            synchronized (mLock) {
+                mPendingZoom *= factor;
+                mPendingDx = factor * mPendingDx + focusX * (1 - factor);
+                mPendingDy = factor * mPendingDy + focusY * (1 - factor);
+                requestFrame();
+            }
+        }
+
+        void setLabelAtlasEnabled(boolean enabled) {
+            synchronized (mLock) {
+                mPendingAtlasEnabled = enabled;
+                mAtlasChanged = true;
+                requestFrame();
+            }
+        }
+
+        void setNodeColors(int commonColor, int traversalColor) {
+            synchronized (mLock) {
+                mPendingCommonColor = commonColor;
+                mPendingTraversalColor = traversalColor;
+                mColorsChanged = true;
+                requestFrame();
+            }
+        }
+
+        private void requestFrame() {
+            mFrameRequested = true;
+            mLock.notifyAll();
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+            while (true) {
+                SurfaceHolder holder;
+                synchronized (mLock) {
+                    while (mRunning && !mFrameRequested) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (!mRunning) {
+                        return;
+                    }
+                    mFrameRequested = false;
+                    holder = mHolder;
+                    takePendingState();
+                }
+                Canvas canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                        ? holder.lockHardwareCanvas() : holder.lockCanvas();
+                if (canvas == null) {
+                    continue;
+                }
+                try {
+                    drawFrame(canvas);
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+            }
+        }
+
+        /**
+         * 在锁内取走投递的状态，之后绘制只读本线程的副本
+         */
+        private void takePendingState() {
+            mWidth = mPendingWidth;
+            mHeight = mPendingHeight;
+            if (mSnapshotChanged) {
+                mSnapshotChanged = false;
+                mSnapshot = mPendingSnapshot;
+                mTranslateInitialized = false;
+                if (mSnapshot != null) {
+                    BiTreeSnapshot s = mSnapshot;
+                    mRenderer.setTree(s.layout, s.index, s.labels, s.labelIds);
+                }
+            }
+            mOrder = mPendingOrder;
+            mLength = mPendingLength;
+            mStep = mPendingStep;
+            mAlpha = mPendingAlpha;
+            if (mColorsChanged) {
+                mColorsChanged = false;
+                mRenderer.setNodeColors(mPendingCommonColor, mPendingTraversalColor);
+            }
+            if (mAtlasChanged) {
+                mAtlasChanged = false;
+                if (mPendingAtlasEnabled != mAtlasEnabled) {
+                    mAtlasEnabled = mPendingAtlasEnabled;
+                    //图集的位图在绘制线程中创建，只被这个线程改写
+                    mRenderer.setLabelAtlas(mAtlasEnabled
+                            ? new BiTreeLabelAtlas(mRenderer.getTextPaint(), BiTreeLabelAtlas.DEFAULT_SIZE) : null);
+                }
+            }
+            mScale *= mPendingZoom;
+            mTranslateX = mPendingZoom * mTranslateX + mPendingDx;
+            mTranslateY = mPendingZoom * mTranslateY + mPendingDy;
+            mPendingZoom = 1f;
+            mPendingDx = 0;
+            mPendingDy = 0;
+        }
+
+        private void drawFrame(Canvas canvas) {
+            canvas.drawColor(Color.WHITE);
+            if (mSnapshot == null || mSnapshot.layout.root < 0) {
+                return;
+            }
+            BiTreeLayout layout = mSnapshot.layout;
+            if (!mTranslateInitialized) {
+                //初始时根节点水平居中
+                mTranslateX = (mWidth - layout.width * mScale) / 2;
+                mTranslateY = 0;
+                mTranslateInitialized = true;
+            }
+            //可见区域换算到布局坐标
+            mVisibleRect.set((int) Math.floor(-mTranslateX / mScale),
+                    (int) Math.floor(-mTranslateY / mScale),
+                    (int) Math.ceil((mWidth - mTranslateX) / mScale),
+                    (int) Math.ceil((mHeight - mTranslateY) / mScale));
+            mRenderer.updateLod(mScale);
+
+            canvas.save();
+            canvas.translate(mTranslateX, mTranslateY);
+            canvas.scale(mScale, mScale);
+            mRenderer.drawTree(canvas, mVisibleRect);
+            if (mOrder != null) {
+                mRenderer.drawVisitedRange(canvas, mOrder, 0, Math.min(mStep, mLength), mStep, mAlpha, mVisibleRect);
+            }
+            canvas.restore();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.zero.binarytreedraw.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.graphics.Rect;
+
+/**
+ * 静态树的分块 Picture 缓存，块按布局坐标划分
+ * <p>
+ * 块的边长随缩放变化：缩小时一块覆盖更大的布局区域，保证屏幕上的块数基本不变。
+ * 块的内容只与树、颜色、细节层次和是否画连线有关；后两者随缩放变化，已经放在块的键里，树和颜色变化时调用 {@link #clear()}。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeTileCache {
+
+    /**
+     * 录制一块区域内的内容，坐标为布局坐标
+     */
+    public interface TileRenderer {
+
+        void renderTile(Canvas canvas, Rect area);
+    }
+
+    private static final int TILE_SIZE_PX = 512;
+
+    private static final int MAX_TILES = 96;
+
+    /**
+     * 键从高位起依次是 level（5 位）、是否画连线（1 位）、lod（2 位）、col 和 row（各 28 位）；
+     * level 不超过 21，不会出现全 1 的键
+     */
+    private static final long NO_KEY = -1L;
+
+    /**
+     * 固定容量的 LRU，用 long 做键避免每帧装箱
+     */
+    private final long[] mKeys = new long[MAX_TILES];
+
+    private final long[] mLastUsed = new long[MAX_TILES];
+
+    private final Picture[] mTiles = new Picture[MAX_TILES];
+
+    private long mClock;
+
+    private final TileRenderer mRenderer;
+
+    private final Rect mTileRect = new Rect();
+
+    public BiTreeTileCache(TileRenderer renderer) {
+        mRenderer = renderer;
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_TILES; i++) {
+            mTiles[i] = null;
+        }
+    }
+
+    /**
+     * 丢弃与布局坐标中的矩形相交的块，保留 Picture 以便重新录制时复用
+     */
+    public void invalidate(int left, int top, int right, int bottom) {
+        for (int i = 0; i < MAX_TILES; i++) {
+            if (mTiles[i] == null || mKeys[i] == NO_KEY) {
+                continue;
+            }
+            long key = mKeys[i];
+            int tileSize = TILE_SIZE_PX << (int) (key >>> 59);
+            //col / row 为 28 位有符号数
+            int col = (int) ((key << 8) >> 36);
+            int row = (int) ((key << 36) >> 36);
+            if (col * tileSize <= right && (col + 1) * tileSize >= left
+                    && row * tileSize <= bottom && (row + 1) * tileSize >= top) {
+                mKeys[i] = NO_KEY;
+                mLastUsed[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * 画出与可见区域相交的所有块，canvas 已经变换到布局坐标
+     *
+     * @param edgeVisible 渲染器当前是否画连线，同一 level 内它也会随缩放变化，与 lod 一起决定块的内容
+     */
+    public void draw(Canvas canvas, Rect visible, float scale, int lod, boolean edgeVisible) {
+        int level = 0;
+        while (level < 21 && scale * (1 << level) < 1f) {
+            level++;
+        }
+        int tileSize = TILE_SIZE_PX << level;
+
+        int fromCol = floorDiv(visible.left, tileSize);
+        int toCol = floorDiv(visible.right, tileSize);
+        int fromRow = floorDiv(visible.top, tileSize);
+        int toRow = floorDiv(visible.bottom, tileSize);
+
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                mTileRect.set(col * tileSize, row * tileSize, (col + 1) * tileSize, (row + 1) * tileSize);
+                Picture picture = get(key(level, lod, edgeVisible, col, row));
+                canvas.save();
+                canvas.translate(mTileRect.left, mTileRect.top);
+                canvas.clipRect(0, 0, tileSize, tileSize);
+                canvas.drawPicture(picture);
+                canvas.restore();
+            }
+        }
+    }
+
+    private Picture get(long key) {
+        mClock++;
+        int victim = 0;
+        for (int i = 0; i < MAX_TILES; i++) {
+            if (mTiles[i] != null && mKeys[i] == key) {
+                mLastUsed[i] = mClock;
+                return mTiles[i];
+            }
+            if (mTiles[i] == null) {
+                if (mTiles[victim] != null) {
+                    victim = i;
+                }
+            } else if (mTiles[victim] != null && mLastUsed[i] < mLastUsed[victim]) {
+                victim = i;
+            }
+        }
+
+        //淘汰最久未使用的块，复用它的 Picture 重新录制
+        Picture picture = mTiles[victim];
+        if (picture == null) {
+            picture = new Picture();
+        }
+        Canvas canvas = picture.beginRecording(mTileRect.width(), mTileRect.height());
+        canvas.translate(-mTileRect.left, -mTileRect.top);
+        mRenderer.renderTile(canvas, mTileRect);
+        picture.endRecording();
+
+        mTiles[victim] = picture;
+        mKeys[victim] = key;
+        mLastUsed[victim] = mClock;
+        return picture;
+    }
+
+    private static long key(int level, int lod, boolean edgeVisible, int col, int row) {
+        return ((long) level << 59) | (edgeVisible ? 1L << 58 : 0L) | ((long) lod << 56)
+                | ((long) (col & 0xFFFFFFF) << 28) | (row & 0xFFFFFFF);
+    }
+
+    private static int floorDiv(int a, int b) {
+        int q = a / b;
+        return (a % b != 0 && (a < 0) != (b < 0)) ? q - 1 : q;
+    }
+}
@@ -1,45 +1,61 @@
 package com.zero.binarytreedraw.widget;
 
-import android.animation.Animator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Point;
 import android.graphics.Rect;
+import android.os.Build;
 import android.support.annotation.IntDef;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.view.WindowManager;
 
 import com.zero.binarytreedraw.R;
 import com.zero.binarytreedraw.datastruture.BiNode;
 import com.zero.binarytreedraw.datastruture.BiTree;
+import com.zero.binarytreedraw.datastruture.BiTreeChangeListener;
+import com.zero.binarytreedraw.datastruture.CompactBiTree;
+import com.zero.binarytreedraw.datastruture.PersistentBiTree;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * @author zz
  * @email zzerostar@163.com
  * @date 2018/3/28
  */
-public class BiTreeView extends View implements Animator.AnimatorListener {
+public class BiTreeView extends View implements BiTreeTileCache.TileRenderer {
 
     private static final String TAG = "BiTreeView";
 
-    @IntDef({ STATE_NORMAL, STATE_PRE_ORDER_TRAVERSAL, STATE_IN_ORDER_TRAVERSAL, STATE_POST_ORDER_TRAVERSAL })
+    @IntDef({ STATE_NORMAL, STATE_PRE_ORDER_TRAVERSAL, STATE_IN_ORDER_TRAVERSAL, STATE_POST_ORDER_TRAVERSAL, STATE_LEVEL_TRAVERSAL })
     private @interface State {
     }
 
-    private static final int STATE_NORMAL = -1;
-    private static final int STATE_PRE_ORDER_TRAVERSAL = 1;
-    private static final int STATE_IN_ORDER_TRAVERSAL = 2;
-    private static final int STATE_POST_ORDER_TRAVERSAL = 3;
-    private static final int STATE_LEVEL_TRAVERSAL = 4;
+    private static final int STATE_NORMAL = TraversalSequence.NONE;
+    private static final int STATE_PRE_ORDER_TRAVERSAL = TraversalSequence.PRE_ORDER;
+    private static final int STATE_IN_ORDER_TRAVERSAL = TraversalSequence.IN_ORDER;
+    private static final int STATE_POST_ORDER_TRAVERSAL = TraversalSequence.POST_ORDER;
+    private static final int STATE_LEVEL_TRAVERSAL = TraversalSequence.LEVEL_ORDER;
+
+    /**
+     * 已遍历部分按固定步数分段录制，录完的段不再变化
+     */
+    private static final int VISITED_CHUNK = 64;
+
+    private static final float MIN_SCALE = 0.01f;
+    private static final float MAX_SCALE = 4f;
 
     private @State int state = STATE_NORMAL;
 
@@ -50,27 +66,157 @@ public class BiTreeView extends View implements Animator.AnimatorListener {
 
     private int textSize;
 
-    private int commonColor;
-    private int traversalColor;
+    private int layoutMode = BiTreeLayout.MODE_FULL;
 
     private int mWidth;
     private int mHeight;
 
-    private Paint mLinePaint;
-    private Paint mCircleFillPaint;
-    private Paint mCircleStrokePaint;
-    private Paint mTextPaint;
+    private BiTreeRenderer mRenderer;
+
+    /**
+     * 决定显示到第几步以及最后一个节点的透明度
+     */
+    private final TraversalPlayer mPlayer = new TraversalPlayer(new TraversalPlayer.Target() {
+        @Override
+        public void onPlaybackStep(int step, int alpha) {
+            BiTreeView.this.onPlaybackStep(step, alpha);
+        }
+
+        @Override
+        public void onPlaybackEnd() {
+            if (mAnimEndListener != null) {
+                mAnimEndListener.animEnd(BiTreeView.this);
+            }
+        }
+    });
 
-    private ValueAnimator mValueAnimator;
     private int alpha;
 
     private AnimEndListener mAnimEndListener;
 
-    private int lastX;
+    private TreeLoadListener mTreeLoadListener;
+
+    private BiTreeLoader mLoader;
+
+    /**
+     * 离开窗口时被挂起的加载，重新进入窗口后再次发起
+     */
+    private BiTreeLoader.Source mSuspendedLoad;
+
+    private BiTreeMetricsListener mMetricsListener;
+
+    /**
+     * 调试浮层使用的统计，打开浮层时创建
+     */
+    private BiTreeMetrics mOverlayMetrics;
+
+    private BiTreeMetricsOverlay mOverlay;
+
+    /**
+     * 请求下一步的时间，这一步画出来后清零
+     */
+    private long mStepRequestNanos;
+
+    private long mLastFrameNanos;
+
+    private long mFrameIntervalNanos = 1000000000L / 60;
+
+    private float lastFocusX;
+    private float lastFocusY;
+
+    private ScaleGestureDetector mScaleDetector;
+
+    private float mScale = 1f;
+    private float mTranslateX;
+    private float mTranslateY;
+    private boolean mTranslateInitialized;
 
     private BiTree mBiTree;
 
-    private int step;
+    /**
+     * 离开窗口时不再监听 mBiTree，记下当时的修改次数；重新进入窗口时树变过才整体重排，
+     * 没变过就保留布局和遍历进度
+     */
+    private int mDetachedChangeCount;
+
+    /**
+     * 创建时还没有进入窗口，换上的树等到 onAttachedToWindow 才开始监听
+     */
+    private boolean mDetachedFromWindow = true;
+
+    /**
+     * 监听当前 BiTree 的修改，只重排和重画变化的部分
+     */
+    private final BiTreeChangeListener mChangeListener = new BiTreeChangeListener() {
+        @Override
+        public void onSubtreeReplaced(BiTree biTree, int parentIndex, boolean isLeft, int index, int oldSize) {
+            BiTreeView.this.onSubtreeReplaced(biTree, parentIndex, isLeft, index, oldSize);
+        }
+
+        @Override
+        public void onLabelChanged(BiTree biTree, int index) {
+            BiTreeView.this.onLabelChanged(biTree, index);
+        }
+    };
+
+    private BiTreeLayout mLayout;
+
+    /**
+     * 当前显示的不可变树，其他来源的树为 null
+     */
+    private PersistentBiTree mPersistentTree;
+
+    /**
+     * mLayout 是缓存在 PersistentBiTree 上的快照时为 true，此时不能在原地修改
+     */
+    private boolean mLayoutShared;
+
+    /**
+     * 本视图在 PersistentBiTree 上缓存快照用的 key，按排布方式区分
+     */
+    private final Object[] mSnapshotKeys = {new Object(), new Object()};
+
+    private TraversalSequence mSequence = new TraversalSequence();
+
+    private BiTreeSpatialIndex mSpatialIndex = new BiTreeSpatialIndex();
+
+    private final Rect mVisibleRect = new Rect();
+
+    private final Rect mClipRect = new Rect();
+
+    private final Point mVisibleOffset = new Point();
+
+    /**
+     * 不同的标签只量一次，节点通过 mLabelIds 引用
+     */
+    private BiTreeLabels mLabels;
+
+    private int[] mLabelIds = new int[0];
+
+    /**
+     * 当前绘制使用的裁剪区域，录制缓存时指向录制范围
+     */
+    private Rect mCullRect = mVisibleRect;
+
+    private final Rect mFullRect = new Rect();
+
+    private BiTreeTileCache mTileCache = new BiTreeTileCache(this);
+
+    /**
+     * 已经遍历过的节点（不含正在渐变的最后一个）：完整的段放在 mVisitedChunks，
+     * 不足一段的剩余部分每帧直接绘制，步数变化时不用重新录制，也就不分配录制用的 Canvas
+     */
+    private final ArrayList<Picture> mVisitedChunks = new ArrayList<>();
+
+    /**
+     * mCountedRect 内的节点数，帧统计用；为 -1 时需要重新查询。缓存块画出时不经过查询，
+     * 可见区域和树都没变时沿用上一次的结果
+     */
+    private int mVisibleNodeCount = -1;
+    private final Rect mCountedRect = new Rect();
+    private int mVisitedStep = -1;
+    private int mVisitedLod = -1;
+    private boolean mVisitedEdges;
 
     private int stepLimit;
 
@@ -89,8 +235,6 @@ public class BiTreeView extends View implements Animator.AnimatorListener {
 
     private void init(AttributeSet attrs) {
 
-        commonColor = getResources().getColor(R.color.app_common_color);
-        traversalColor = getResources().getColor(R.color.home_nav_sort_color);
         topAndBottomOffset = getResources().getDimensionPixelOffset(R.dimen.bitree_top_bottom_offset);
 
         if (attrs != null) {
@@ -100,114 +244,452 @@ public class BiTreeView extends View implements Animator.AnimatorListener {
             xGap = ta.getDimensionPixelSize(R.styleable.BiTreeView_x_gap, res.getDimensionPixelSize(R.dimen.bitree_x_gap_default));
             yGap = ta.getDimensionPixelSize(R.styleable.BiTreeView_y_gap, res.getDimensionPixelSize(R.dimen.bitree_y_gap_default));
             textSize = ta.getDimensionPixelSize(R.styleable.BiTreeView_text_size, res.getDimensionPixelSize(R.dimen.bitree_text_size_default));
+            layoutMode = ta.getInt(R.styleable.BiTreeView_tree_layout, BiTreeLayout.MODE_FULL);
+            ta.recycle();
         }
 
-        initPaint();
-        initAnimator();
+        mLayout = new BiTreeLayout(mCircleRadius, xGap, yGap, topAndBottomOffset);
+        mLayout.setMode(layoutMode);
+
+        mRenderer = new BiTreeRenderer(getResources(), mCircleRadius, yGap, textSize);
+        mLabels = new BiTreeLabels(mRenderer.getTextPaint());
+        initGesture();
     }
 
-    private void initPaint() {
-        mLinePaint = new Paint();
-        mLinePaint.setStyle(Paint.Style.STROKE);
-        mLinePaint.setStrokeWidth(2);
-        mLinePaint.setAntiAlias(true);
-        mLinePaint.setColor(getResources().getColor(R.color.app_common_color));
+    private void initGesture() {
+        mScaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                float scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, mScale * detector.getScaleFactor()));
+                float factor = scale / mScale;
+                //以两指中心为不动点缩放
+                float focusX = detector.getFocusX();
+                float focusY = detector.getFocusY();
+                mTranslateX = focusX - (focusX - mTranslateX) * factor;
+                mTranslateY = focusY - (focusY - mTranslateY) * factor;
+                mScale = scale;
+                invalidate();
+                return true;
+            }
+        });
+    }
 
-        mCircleFillPaint = new Paint();
-        mCircleFillPaint.setStyle(Paint.Style.FILL);
-        mCircleFillPaint.setColor(getResources().getColor(R.color.app_common_color));
+    public void setBiTree(BiTree biTree) {
+        cancelLoad();
+        attachTree(biTree);
+        layoutTree(biTree);
+    }
+
+    private void layoutTree(BiTree biTree) {
+        ensureOwnLayout();
+        long start = System.nanoTime();
+        mLayout.compute(biTree);
+        dispatchTreeLayout(System.nanoTime() - start);
+        onTreeChanged();
+    }
+
+    /**
+     * 直接从紧凑存储绘制，不需要先转换成 BiNode
+     */
+    public void setBiTree(CompactBiTree biTree) {
+        cancelLoad();
+        ensureOwnLayout();
+        attachTree(null);
+        long start = System.nanoTime();
+        mLayout.compute(biTree);
+        dispatchTreeLayout(System.nanoTime() - start);
+        onTreeChanged();
+    }
+
+    /**
+     * 显示不可变树的某个版本，布局按版本缓存在树上，切回看过的版本时不再计算
+     */
+    public void setBiTree(PersistentBiTree biTree) {
+        cancelLoad();
+        Object key = mSnapshotKeys[layoutMode];
+        BiTreeSnapshot snapshot = (BiTreeSnapshot) biTree.getCached(key);
+        boolean computed = snapshot == null;
+        if (computed) {
+            BiTreeLayout layout = new BiTreeLayout(mCircleRadius, xGap, yGap, topAndBottomOffset);
+            layout.setMode(layoutMode);
+            long start = System.nanoTime();
+            layout.compute(biTree);
+            long layoutNanos = System.nanoTime() - start;
+            snapshot = BiTreeSnapshot.create(null, layout, layoutNanos, mCircleRadius, mRenderer.getTextPaint());
+            biTree.putCached(key, snapshot);
+        }
+        setSnapshot(snapshot);
+        attachTree(null);
+        mPersistentTree = biTree;
+        mLayoutShared = true;
+        //换上之后再汇报，监听器看到的 mLayout 就是新计算的布局
+        if (computed) {
+            dispatchTreeLayout(snapshot.layoutNanos);
+        }
+    }
 
-        mCircleStrokePaint = new Paint();
-        mCircleStrokePaint.setStyle(Paint.Style.STROKE);
-        mCircleStrokePaint.setStrokeWidth(2);
-        mCircleStrokePaint.setAntiAlias(true);
-        mCircleStrokePaint.setColor(getResources().getColor(R.color.dark_blue));
-        mCircleStrokePaint.setStrokeCap(Paint.Cap.ROUND);
+    /**
+     * 当前显示的可变树，通过它的修改方法（需在主线程调用）更新时视图只重画变化的部分
+     */
+    public BiTree getBiTree() {
+        return mBiTree;
+    }
 
-        mTextPaint = new Paint();
-        mTextPaint.setColor(getResources().getColor(R.color.text_color_white));
-        mTextPaint.setTextSize(textSize);
+    /**
+     * 树持有监听器，也就持有本视图；离开窗口时移除，活得比界面长的树不会让视图和 Activity 泄漏。
+     * 离开窗口后换上的树先不监听，重新进入窗口时再监听并整体重排
+     */
+    private void attachTree(BiTree biTree) {
+        if (mBiTree != null) {
+            mBiTree.removeChangeListener(mChangeListener);
+        }
+        mBiTree = biTree;
+        if (biTree == null) {
+            return;
+        }
+        if (mDetachedFromWindow) {
+            //调用方随后按当前内容排布，之后的修改在重新进入窗口时比较
+            mDetachedChangeCount = biTree.getChangeCount();
+        } else {
+            biTree.addChangeListener(mChangeListener);
+        }
     }
 
-    private void initAnimator() {
-        mValueAnimator = ValueAnimator.ofInt(0, 255);
-        mValueAnimator.setDuration(800);
-        mValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+    /**
+     * 原地拼接布局表、只重排受影响的子树，然后只重画变化的区域
+     */
+    private void onSubtreeReplaced(BiTree biTree, int parentIndex, boolean isLeft, int index, int oldSize) {
+        BiNode subtree;
+        if (parentIndex < 0) {
+            subtree = biTree.getRoot();
+        } else {
+            BiNode parent = biTree.getNode(parentIndex);
+            subtree = isLeft ? parent.leftChild : parent.rightChild;
+        }
+        int newSize = subtree == null ? 0 : subtree.size;
+        int oldCount = mLayout.count;
+        int oldWidth = mLayout.width;
+        int oldHeight = mLayout.height;
+
+        long start = System.nanoTime();
+        mLayout.replaceSubtree(parentIndex, isLeft, index, oldSize, subtree);
+        dispatchTreeLayout(System.nanoTime() - start);
+
+        mLabelIds = splice(mLabelIds, index, oldSize, newSize, oldCount);
+        mLabels.measure(mLayout, mLabelIds, index, index + newSize);
+        mSpatialIndex.build(mLayout, mCircleRadius);
+        onTreeEdited();
+
+        if (mLayout.width != oldWidth || mLayout.height != oldHeight) {
+            requestLayout();
+            invalidate();
+        } else {
+            invalidateNodeRect(mLayout.dirtyLeft, mLayout.dirtyTop, mLayout.dirtyRight, mLayout.dirtyBottom);
+        }
+    }
+
+    private void onLabelChanged(BiTree biTree, int index) {
+        mLayout.labels[index] = biTree.getNode(index).data;
+        mLabels.measure(mLayout, mLabelIds, index, index + 1);
+        onTreeEdited();
+        int x = mLayout.x[index];
+        int y = mLayout.y[index];
+        invalidateNodeRect(x - mCircleRadius, y - mCircleRadius, x + mCircleRadius, y + mCircleRadius);
+    }
+
+    /**
+     * 按节点圆计算的区域再扩大到能盖住最宽的标签，新旧标签都在标签表中，比节点宽的文字也不会残留
+     */
+    private void invalidateNodeRect(int left, int top, int right, int bottom) {
+        int padX = Math.max(0, mLabels.extentX - mCircleRadius);
+        int padY = Math.max(0, mLabels.extentY - mCircleRadius);
+        invalidateLayoutRect(left - padX, top - padY, right + padX, bottom + padY);
+    }
+
+    /**
+     * 树被修改后，已经录制的遍历路径和访问顺序都不再有效
+     */
+    private void onTreeEdited() {
+        clearVisitedCache();
+        mVisibleNodeCount = -1;
+        if (state != STATE_NORMAL) {
+            //只重新算到当前步，之后的部分随播放补上
+            mSequence.compute(mLayout, state);
+            stepLimit = Math.min(stepLimit, mSequence.length);
+            mSequence.ensure(stepLimit);
+            mPlayer.setStepCount(mSequence.length);
+        }
+    }
+
+    /**
+     * 丢弃与布局坐标中的矩形相交的缓存块，并只重画它在屏幕上对应的区域
+     */
+    private void invalidateLayoutRect(int left, int top, int right, int bottom) {
+        if (left > right || top > bottom) {
+            return;
+        }
+        mTileCache.invalidate(left, top, right, bottom);
+        //连线和描边有宽度，多留一点
+        int pad = (int) Math.ceil(mRenderer.getLineWidth());
+        invalidate((int) Math.floor(left * mScale + mTranslateX) - pad,
+                (int) Math.floor(top * mScale + mTranslateY) - pad,
+                (int) Math.ceil(right * mScale + mTranslateX) + pad,
+                (int) Math.ceil(bottom * mScale + mTranslateY) + pad);
+    }
+
+    /**
+     * 与布局表一样，把原子树之后的元素移动到新子树之后
+     */
+    private static int[] splice(int[] array, int index, int oldSize, int newSize, int oldCount) {
+        int newCount = oldCount - oldSize + newSize;
+        if (array.length < newCount) {
+            array = Arrays.copyOf(array, Math.max(newCount, array.length * 2));
+        }
+        System.arraycopy(array, index + oldSize, array, index + newSize, oldCount - index - oldSize);
+        return array;
+    }
+
+    /**
+     * 当前的布局来自缓存时换成自己的，之后可以在原地修改
+     */
+    private void ensureOwnLayout() {
+        mPersistentTree = null;
+        if (!mLayoutShared) {
+            return;
+        }
+        mLayoutShared = false;
+        mLayout = new BiTreeLayout(mCircleRadius, xGap, yGap, topAndBottomOffset);
+        mLayout.setMode(layoutMode);
+        mSpatialIndex = new BiTreeSpatialIndex();
+        mLabels = new BiTreeLabels(mRenderer.getTextPaint());
+        mLabelIds = new int[0];
+    }
+
+    /**
+     * 在后台线程解析序列并计算布局，完成后在主线程整体替换当前的树，
+     * 替换前仍显示原来的树；未完成的上一次加载会被取消
+     */
+    public void loadBiTree(CharSequence src) {
+        load(BiTreeLoader.source(src));
+    }
+
+    /**
+     * 同 {@link #loadBiTree(CharSequence)}，reader 在后台线程读完后关闭
+     */
+    public void loadBiTree(Reader reader) {
+        load(BiTreeLoader.source(reader));
+    }
+
+    public void cancelLoad() {
+        mSuspendedLoad = null;
+        if (mLoader != null) {
+            mLoader.cancel();
+        }
+    }
+
+    private void load(BiTreeLoader.Source source) {
+        mSuspendedLoad = null;
+        if (mLoader == null) {
+            mLoader = new BiTreeLoader();
+        }
+        //布局参数和画笔在主线程准备好，后台线程只使用这些副本
+        BiTreeLayout layout = new BiTreeLayout(mCircleRadius, xGap, yGap, topAndBottomOffset);
+        layout.setMode(layoutMode);
+        mLoader.load(source, layout, mCircleRadius, new Paint(mRenderer.getTextPaint()), new BiTreeLoader.Callback() {
             @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                alpha = (int) animation.getAnimatedValue();
-                invalidate();
+            public void onLoaded(BiTreeSnapshot snapshot) {
+                mPersistentTree = null;
+                mLayoutShared = false;
+                setSnapshot(snapshot);
+                dispatchTreeLayout(snapshot.layoutNanos);
+                if (mTreeLoadListener != null) {
+                    mTreeLoadListener.onTreeLoaded(BiTreeView.this);
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                Log.w(TAG, "load tree failed", e);
+                if (mTreeLoadListener != null) {
+                    mTreeLoadListener.onTreeLoadFailed(BiTreeView.this, e);
+                }
             }
         });
-        mValueAnimator.addListener(this);
     }
 
-    public void setBiTree(BiTree biTree) {
-        this.mBiTree = biTree;
+    /**
+     * 换上后台算好的树，这里只交换引用
+     */
+    private void setSnapshot(BiTreeSnapshot snapshot) {
+        attachTree(snapshot.biTree);
+        mLayout = snapshot.layout;
+        mSpatialIndex = snapshot.index;
+        mLabels = snapshot.labels;
+        mLabelIds = snapshot.labelIds;
+        resetTreeState();
+    }
+
+    /**
+     * @param mode {@link BiTreeLayout#MODE_FULL} 或 {@link BiTreeLayout#MODE_COMPACT}
+     */
+    public void setLayoutMode(int mode) {
+        BiTreeLayout.checkMode(mode);
+        if (layoutMode == mode) {
+            return;
+        }
+        layoutMode = mode;
+        if (mPersistentTree != null) {
+            //缓存的布局不能原地修改，换成对应排布方式的快照
+            setBiTree(mPersistentTree);
+            return;
+        }
+        mLayout.setMode(mode);
+        long start = System.nanoTime();
+        mLayout.relayout();
+        dispatchTreeLayout(System.nanoTime() - start);
+        mSpatialIndex.build(mLayout, mCircleRadius);
+        invalidateCache();
+        requestLayout();
+        invalidate();
+    }
+
+    public void setScale(float scale) {
+        mScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+        invalidate();
+    }
+
+    public float getScale() {
+        return mScale;
+    }
+
+    /**
+     * 修改节点颜色，缓存的画面随之失效
+     */
+    public void setNodeColors(int commonColor, int traversalColor) {
+        mRenderer.setNodeColors(commonColor, traversalColor);
+        invalidateCache();
+        invalidate();
+    }
+
+    private void invalidateCache() {
+        mTileCache.clear();
+        clearVisitedCache();
+        mVisibleNodeCount = -1;
+    }
+
+    private void clearVisitedCache() {
+        mVisitedChunks.clear();
+        mVisitedStep = -1;
+    }
+
+    private void onTreeChanged() {
+        mSpatialIndex.build(mLayout, mCircleRadius);
+        measureLabels();
+        resetTreeState();
+    }
+
+    private void resetTreeState() {
+        invalidateCache();
+        mTranslateInitialized = false;
+        mPlayer.stop();
+        mSequence.clear();
+        state = STATE_NORMAL;
         stepLimit = 0;
         requestLayout();
+        invalidate();
     }
 
     public void setAnimDuring(int during) {
-        mValueAnimator.setDuration(during);
+        mPlayer.setStepDuration(during);
+    }
+
+    /**
+     * 遍历的播放控制：速度、每帧节点数、跳转、暂停 / 继续以及按帧推进的模式
+     */
+    public TraversalPlayer getTraversalPlayer() {
+        return mPlayer;
     }
 
     public int getNodeCount() {
-        return mBiTree.getNodeCount();
+        return mLayout.count;
     }
 
     public int getStepLimit() {
         return stepLimit;
     }
 
+    /**
+     * 立即前进一步，播放中会从新的位置继续
+     */
     public void next() {
-        int count = mBiTree.getNodeCount();
-        if (stepLimit > count) {
-            return;
-        }
-        stepLimit++;
-        mValueAnimator.start();
+        mPlayer.seekTo(stepLimit + 1);
     }
 
-    public void beginPreOrderTraversal() {
-        stepLimit = 1;
-        state = STATE_PRE_ORDER_TRAVERSAL;
-        mValueAnimator.start();
+    /**
+     * 立即后退一步，已经算出的访问顺序直接复用
+     */
+    public void previous() {
+        mPlayer.seekTo(stepLimit - 1);
+    }
 
+    /**
+     * 拖动到第 step 步，超出范围时取第一步或最后一步
+     */
+    public void seekTo(int step) {
+        mPlayer.seekTo(step);
     }
 
-    public void beginInOrderTraversal() {
-        stepLimit = 1;
-        state = STATE_IN_ORDER_TRAVERSAL;
-        mValueAnimator.start();
+    /**
+     * 回到第一步
+     */
+    public void rewind() {
+        mPlayer.seekTo(1);
+    }
 
+    public void beginPreOrderTraversal() {
+        beginTraversal(STATE_PRE_ORDER_TRAVERSAL);
     }
 
-    public void beginPostOrderTraversal() {
-        stepLimit = 1;
-        state = STATE_POST_ORDER_TRAVERSAL;
-        mValueAnimator.start();
+    public void beginInOrderTraversal() {
+        beginTraversal(STATE_IN_ORDER_TRAVERSAL);
+    }
 
+    public void beginPostOrderTraversal() {
+        beginTraversal(STATE_POST_ORDER_TRAVERSAL);
     }
 
     public void beginLevelTraversal() {
-        stepLimit = 1;
-        state = STATE_LEVEL_TRAVERSAL;
-        mValueAnimator.start();
+        beginTraversal(STATE_LEVEL_TRAVERSAL);
+    }
+
+    /**
+     * 访问顺序随播放逐步算出，每一步只在第一次到达时计算
+     */
+    private void beginTraversal(@State int traversalState) {
+        state = traversalState;
+        mSequence.compute(mLayout, traversalState);
+        clearVisitedCache();
+        mLastFrameNanos = 0;
+        mPlayer.start(mSequence.length);
+    }
+
+    private void onPlaybackStep(int step, int stepAlpha) {
+        mSequence.ensure(step);
+        if (step != stepLimit) {
+            stepLimit = step;
+            mStepRequestNanos = System.nanoTime();
+        }
+        alpha = stepAlpha;
+        invalidate();
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        if (mBiTree != null) {
-            int treeHeight = mBiTree.height();
-            int maxLeafCount = (int) Math.pow(2, treeHeight - 1);
-
-            //最大的叶子数量 * 直径 + (最大叶子数量 + 1) * 间隔
-            mWidth = mCircleRadius * 2 * maxLeafCount + 2 * xGap * (maxLeafCount + 1);
-
-            //树高度 * 直径 + (树高度 - 1) * 间隔 + offset
-            mHeight = mCircleRadius * 2 * treeHeight + yGap * (treeHeight - 1) + 2 * topAndBottomOffset;
+        if (mLayout.count > 0) {
+            //不超过父布局给的大小，超出的部分通过拖动和缩放查看
+            mWidth = resolveSize(mLayout.width, widthMeasureSpec);
+            mHeight = resolveSize(mLayout.height, heightMeasureSpec);
 
             setMeasuredDimension(mWidth, mHeight);
 
@@ -219,284 +701,318 @@ public class BiTreeView extends View implements Animator.AnimatorListener {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (mBiTree == null) {
+        if (mLayout.root < 0) {
             return;
         }
+        long start = hasMetricsListener() ? System.nanoTime() : 0;
         canvas.drawColor(Color.WHITE);
-        preOrderDraw(canvas, mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0);
 
-        step = 0;
-        if (state == STATE_PRE_ORDER_TRAVERSAL) {
-            preOrderTraversal(canvas, mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0);
-        } else if (state == STATE_IN_ORDER_TRAVERSAL) {
-            inOrderTraversal(canvas, mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0);
-        } else if (state == STATE_POST_ORDER_TRAVERSAL) {
-            postOrderTraversal(canvas, mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0);
-        } else if (state == STATE_LEVEL_TRAVERSAL) {
-            levelTraversal(canvas);
+        //只画屏幕上能看到的部分
+        //等同于 getLocalVisibleRect，但复用 Point，未 attach 时也不分配对象
+        if (!getGlobalVisibleRect(mVisibleRect, mVisibleOffset) || !canvas.getClipBounds(mClipRect)) {
+            return;
+        }
+        mVisibleRect.offset(-mVisibleOffset.x, -mVisibleOffset.y);
+        if (!mVisibleRect.intersect(mClipRect)) {
+            return;
+        }
+        if (!mTranslateInitialized) {
+            //初始时根节点水平居中
+            mTranslateX = (getWidth() - mLayout.width * mScale) / 2;
+            mTranslateY = 0;
+            mTranslateInitialized = true;
+        }
+        //可见区域换算到布局坐标
+        mVisibleRect.set((int) Math.floor((mVisibleRect.left - mTranslateX) / mScale),
+                (int) Math.floor((mVisibleRect.top - mTranslateY) / mScale),
+                (int) Math.ceil((mVisibleRect.right - mTranslateX) / mScale),
+                (int) Math.ceil((mVisibleRect.bottom - mTranslateY) / mScale));
+        mRenderer.updateLod(mScale);
+
+        canvas.save();
+        canvas.translate(mTranslateX, mTranslateY);
+        canvas.scale(mScale, mScale);
+        drawTree(canvas);
+        canvas.restore();
+
+        if (start != 0) {
+            dispatchFrame(System.nanoTime() - start);
+        }
+        if (mOverlay != null) {
+            mOverlay.draw(canvas, mOverlayMetrics);
         }
     }
 
-    public boolean onTouchEvent(MotionEvent event) {
-        //获取到手指处的横坐标和纵坐标
-        int x = (int) event.getX();
-
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                lastX = x;
-                break;
+    private boolean hasMetricsListener() {
+        return mMetricsListener != null || mOverlayMetrics != null;
+    }
 
-            case MotionEvent.ACTION_MOVE:
-                //计算移动的距离
-                int offsetX = x - lastX;
-                //调用layout方法来重新放置它的位置
-                layout(getLeft() + offsetX, getTop(), getRight() + offsetX, getBottom());
-                break;
+    private void dispatchTreeLayout(long nanos) {
+        if (mMetricsListener != null) {
+            mMetricsListener.onTreeLayout(this, nanos, mLayout.count);
+        }
+        if (mOverlayMetrics != null) {
+            mOverlayMetrics.onTreeLayout(this, nanos, mLayout.count);
         }
-
-        return true;
     }
 
-
-    private void preOrderDraw(Canvas canvas, BiNode biNode, int x, int y, int parentX, int parentY) {
-        if (parentX != 0 && parentY != 0) {
-            drawLine(canvas, parentX, parentY, x, y);
+    /**
+     * 一帧画完后汇报耗时、可见节点数、步骤延迟和掉帧
+     */
+    private void dispatchFrame(long drawNanos) {
+        long now = System.nanoTime();
+        Rect r = mVisibleRect;
+        if (mVisibleNodeCount < 0 || !mCountedRect.equals(r)) {
+            mSpatialIndex.query(r.left, r.top, r.right, r.bottom);
+            mVisibleNodeCount = mSpatialIndex.nodeCount;
+            mCountedRect.set(r);
         }
-        drawNode(canvas, biNode, x, y);
-
-        int height = mBiTree.height();
-        int level = mBiTree.getLevel(biNode.data);
+        int drawn = mVisibleNodeCount;
+        int culled = mLayout.count - drawn;
 
-        int xOffset = (int) Math.pow(2, (height - level - 1)) * (mCircleRadius + xGap);
-        int yOffset = yGap + mCircleRadius * 2;
-
-        if (biNode.leftChild != null) {
-            preOrderDraw(canvas, biNode.leftChild, x - xOffset, y + yOffset, x, y);
+        long stepLatency = 0;
+        if (mStepRequestNanos != 0) {
+            stepLatency = now - mStepRequestNanos;
+            mStepRequestNanos = 0;
         }
 
-        if (biNode.rightChild != null) {
-            preOrderDraw(canvas, biNode.rightChild, x + xOffset, y + yOffset, x, y);
+        //只在遍历动画期间统计掉帧，静止时两帧的间隔没有意义
+        int dropped = 0;
+        if (mPlayer.isPlaying()) {
+            if (mLastFrameNanos != 0) {
+                long interval = now - mLastFrameNanos;
+                dropped = (int) ((interval + mFrameIntervalNanos / 2) / mFrameIntervalNanos) - 1;
+            }
+            mLastFrameNanos = now;
+        } else {
+            mLastFrameNanos = 0;
         }
+
+        reportFrame(mMetricsListener, drawNanos, drawn, culled, stepLatency, dropped);
+        reportFrame(mOverlayMetrics, drawNanos, drawn, culled, stepLatency, dropped);
     }
 
-    private void preOrderTraversal(Canvas canvas, BiNode biNode, int x, int y, int parentX, int parentY) {
-        if (step >= stepLimit) {
+    private void reportFrame(BiTreeMetricsListener listener, long drawNanos, int drawn, int culled,
+                             long stepLatency, int dropped) {
+        if (listener == null) {
             return;
         }
-
-        if (parentX != 0 && parentY != 0) {
-            traversalLine(canvas, parentX, parentY, x, y);
-        }
-
-        int height = mBiTree.height();
-        int level = mBiTree.getLevel(biNode.data);
-        traversalNode(canvas, biNode, x, y);
-        step++;
-
-        int xOffset = (int) Math.pow(2, (height - level - 1)) * (mCircleRadius + xGap);
-        int yOffset = yGap + mCircleRadius * 2;
-
-        if (biNode.leftChild != null) {
-            preOrderTraversal(canvas, biNode.leftChild, x - xOffset, y + yOffset, x, y);
+        listener.onFrame(this, drawNanos, drawn, culled);
+        if (stepLatency != 0) {
+            listener.onTraversalStep(this, stepLimit, stepLatency);
         }
-
-        if (biNode.rightChild != null) {
-            preOrderTraversal(canvas, biNode.rightChild, x + xOffset, y + yOffset, x, y);
+        if (dropped > 0) {
+            listener.onFramesDropped(this, dropped);
         }
     }
 
-    private void inOrderTraversal(Canvas canvas, BiNode biNode, int x, int y, int parentX, int parentY) {
-        int height = mBiTree.height();
-        int level = mBiTree.getLevel(biNode.data);
-        int xOffset = (int) Math.pow(2, (height - level - 1)) * (mCircleRadius + xGap);
-        int yOffset = yGap + mCircleRadius * 2;
-
-        if (biNode.leftChild != null) {
-            inOrderTraversal(canvas, biNode.leftChild, x - xOffset, y + yOffset, x, y);
+    private void drawTree(Canvas canvas) {
+        //API 23 以下硬件加速不支持 drawPicture，直接绘制
+        boolean usePicture = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M || !canvas.isHardwareAccelerated();
+        mRenderer.setTree(mLayout, mSpatialIndex, mLabels, mLabelIds);
+        mCullRect = mVisibleRect;
+        int lod = mRenderer.getLod();
+        boolean edgeVisible = mRenderer.isEdgeVisible();
+        if (!usePicture) {
+            mRenderer.drawTree(canvas, mVisibleRect);
+            mVisibleNodeCount = mRenderer.getDrawnNodeCount();
+            mCountedRect.set(mVisibleRect);
+            if (state != STATE_NORMAL) {
+                drawVisitedRange(canvas, 0, Math.min(stepLimit, mSequence.length));
+            }
+            return;
         }
 
-        if (step >= stepLimit) {
+        mTileCache.draw(canvas, mVisibleRect, mScale, lod, edgeVisible);
+        if (state == STATE_NORMAL) {
             return;
         }
-
-        if (parentX != 0 && parentY != 0) {
-            traversalLine(canvas, parentX, parentY, x, y);
+        if (mVisitedStep != stepLimit || mVisitedLod != lod || mVisitedEdges != edgeVisible) {
+            recordVisited();
         }
-        traversalNode(canvas, biNode, x, y);
-        step++;
-
-        if (biNode.rightChild != null) {
-            inOrderTraversal(canvas, biNode.rightChild, x + xOffset, y + yOffset, x, y);
+        for (int k = 0; k < mVisitedChunks.size(); k++) {
+            canvas.drawPicture(mVisitedChunks.get(k));
+        }
+        int visited = Math.max(0, Math.min(stepLimit - 1, mSequence.length));
+        drawVisitedRange(canvas, mVisitedChunks.size() * VISITED_CHUNK, visited);
+        int last = stepLimit - 1;
+        if (last >= 0 && last < mSequence.length) {
+            mRenderer.drawVisited(canvas, mSequence.order[last], alpha, mVisibleRect);
         }
     }
 
-    private void postOrderTraversal(Canvas canvas, BiNode biNode, int x, int y, int parentX, int parentY) {
-        int height = mBiTree.height();
-        int level = mBiTree.getLevel(biNode.data);
-        int xOffset = (int) Math.pow(2, (height - level - 1)) * (mCircleRadius + xGap);
-        int yOffset = yGap + mCircleRadius * 2;
-
-        if (biNode.leftChild != null) {
-            postOrderTraversal(canvas, biNode.leftChild, x - xOffset, y + yOffset, x, y);
+    @Override
+    public void renderTile(Canvas canvas, Rect area) {
+        mRenderer.drawTree(canvas, area);
+    }
+
+    /**
+     * 补录新完成的段，后退时丢掉超出的段，每一步的录制量不超过一段
+     */
+    private void recordVisited() {
+        if (mVisitedLod != mRenderer.getLod() || mVisitedEdges != mRenderer.isEdgeVisible()) {
+            clearVisitedCache();
+            mVisitedLod = mRenderer.getLod();
+            mVisitedEdges = mRenderer.isEdgeVisible();
         }
+        mFullRect.set(0, 0, mLayout.width, mLayout.height);
+        mCullRect = mFullRect;
 
-        if (biNode.rightChild != null) {
-            postOrderTraversal(canvas, biNode.rightChild, x + xOffset, y + yOffset, x, y);
+        int visited = Math.max(0, Math.min(stepLimit - 1, mSequence.length));
+        int chunks = visited / VISITED_CHUNK;
+        while (mVisitedChunks.size() > chunks) {
+            mVisitedChunks.remove(mVisitedChunks.size() - 1);
         }
-
-        if (step >= stepLimit) {
-            return;
+        while (mVisitedChunks.size() < chunks) {
+            int from = mVisitedChunks.size() * VISITED_CHUNK;
+            mVisitedChunks.add(recordVisited(new Picture(), from, from + VISITED_CHUNK));
         }
 
-        if (parentX != 0 && parentY != 0) {
-            traversalLine(canvas, parentX, parentY, x, y);
-        }
-        traversalNode(canvas, biNode, x, y);
-        step++;
-
+        mCullRect = mVisibleRect;
+        mVisitedStep = stepLimit;
     }
 
-    public void levelTraversal(Canvas canvas) {
-
-        Queue<BiNodePosition> queue = new ArrayDeque<>();
-        Queue<BiNodePosition> output = new ArrayDeque<>();
-        queue.add(new BiNodePosition(mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0));
-        output.add(new BiNodePosition(mBiTree.getRoot(), mWidth / 2, mCircleRadius + topAndBottomOffset, 0, 0));
-
-        step++;
-        BiNodePosition curPosition;
-        while (!queue.isEmpty()) {
-            curPosition = queue.peek();
-            BiNode biNode = curPosition.mBiNode;
+    private Picture recordVisited(Picture picture, int from, int to) {
+        Canvas canvas = picture.beginRecording(mLayout.width, mLayout.height);
+        drawVisitedRange(canvas, from, to);
+        picture.endRecording();
+        return picture;
+    }
 
-            int height = mBiTree.height();
-            int level = mBiTree.getLevel(biNode.data);
-            int xOffset = (int) Math.pow(2, (height - level - 1)) * (mCircleRadius + xGap);
-            int yOffset = yGap + mCircleRadius * 2;
-            if (biNode.leftChild != null) {
-                if (step >= stepLimit) {
-                    break;
-                }
-                step++;
+    private void drawVisitedRange(Canvas canvas, int from, int to) {
+        mRenderer.drawVisitedRange(canvas, mSequence.order, from, to, stepLimit, alpha, mCullRect);
+    }
 
-                output.add(new BiNodePosition(biNode.leftChild, curPosition.x - xOffset, curPosition.y + yOffset, curPosition.x, curPosition.y));
-                queue.add(new BiNodePosition(biNode.leftChild, curPosition.x - xOffset, curPosition.y + yOffset, curPosition.x, curPosition.y));
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        mScaleDetector.onTouchEvent(event);
+
+        //用所有手指的中心点计算平移，抬起的手指不计入
+        int action = event.getActionMasked();
+        int skipIndex = action == MotionEvent.ACTION_POINTER_UP ? event.getActionIndex() : -1;
+        float sumX = 0;
+        float sumY = 0;
+        int pointerCount = 0;
+        for (int i = 0; i < event.getPointerCount(); i++) {
+            if (i == skipIndex) {
+                continue;
             }
+            sumX += event.getX(i);
+            sumY += event.getY(i);
+            pointerCount++;
+        }
+        if (pointerCount == 0) {
+            return true;
+        }
+        float focusX = sumX / pointerCount;
+        float focusY = sumY / pointerCount;
 
-            if (biNode.rightChild != null) {
-                if (step >= stepLimit ) {
-                    break;
-                }
-                step++;
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                lastFocusX = focusX;
+                lastFocusY = focusY;
+                break;
 
-                output.add(new BiNodePosition(biNode.rightChild, curPosition.x + xOffset, curPosition.y + yOffset, curPosition.x, curPosition.y));
-                queue.add(new BiNodePosition(biNode.rightChild, curPosition.x + xOffset, curPosition.y + yOffset, curPosition.x, curPosition.y));
-            }
-            queue.poll();
+            case MotionEvent.ACTION_MOVE:
+                //计算移动的距离
+                mTranslateX += focusX - lastFocusX;
+                mTranslateY += focusY - lastFocusY;
+                lastFocusX = focusX;
+                lastFocusY = focusY;
+                invalidate();
+                break;
         }
 
-        while (!output.isEmpty()) {
-            BiNodePosition biNodePosition = output.poll();
-            traversalNode(canvas, biNodePosition.mBiNode.data, biNodePosition.x, biNodePosition.y, output.isEmpty());
-            if (biNodePosition.parentX != 0 && biNodePosition.parentY != 0) {
-                traversalLine(canvas, biNodePosition.x, biNodePosition.y, biNodePosition.parentX, biNodePosition.parentY);
-            }
-        }
+        return true;
     }
 
-    private void drawLine(Canvas canvas, int px, int py, int x, int y) {
-        mLinePaint.setColor(commonColor);
 
-        int difX = x - px;
-        int difY = y - py;
-        int distance = (int) Math.sqrt(Math.pow(difX, 2) + Math.pow(difY, 2));
-        int offsetX = difX * mCircleRadius / distance;
-        int offsetY = difY * mCircleRadius / distance;
-        canvas.drawLine(px + offsetX, py + offsetY, x - offsetX, y - offsetY, mLinePaint);
+    /**
+     * 换了一棵树，重新建立标签表
+     */
+    private void measureLabels() {
+        int count = mLayout.count;
+        if (mLabelIds.length < count) {
+            mLabelIds = new int[count];
+        }
+        mLabels = new BiTreeLabels(mRenderer.getTextPaint());
+        mLabels.measure(mLayout, mLabelIds, 0, count);
     }
 
-    private void drawNode(Canvas canvas, BiNode biNode, int x, int y) {
-        mCircleFillPaint.setColor(commonColor);
-        canvas.drawCircle(x, y, mCircleRadius, mCircleFillPaint);
-        canvas.drawCircle(x, y, mCircleRadius, mCircleStrokePaint);
-
-        String text = biNode.data;
-        Rect rect = new Rect();
-        mTextPaint.getTextBounds(text, 0, text.length(), rect);
-        canvas.drawText(biNode.data, x - rect.width() / 2, y + rect.height() / 2, mTextPaint);
+    public void setAnimEndListener(AnimEndListener animEndListener) {
+        mAnimEndListener = animEndListener;
     }
 
-    private void traversalLine(Canvas canvas, int px, int py, int x, int y) {
-        mLinePaint.setColor(traversalColor);
-
-        int difX = x - px;
-        int difY = y - py;
-        int distance = (int) Math.sqrt(Math.pow(difX, 2) + Math.pow(difY, 2));
-        int offsetX = difX * mCircleRadius / distance;
-        int offsetY = difY * mCircleRadius / distance;
-        canvas.drawLine(px + offsetX, py + offsetY, x - offsetX, y - offsetY, mLinePaint);
-
+    public void setTreeLoadListener(TreeLoadListener treeLoadListener) {
+        mTreeLoadListener = treeLoadListener;
     }
 
-    private void traversalNode(Canvas canvas, BiNode biNode, int x, int y) {
-        mCircleFillPaint.setColor(traversalColor);
-        if (step == stepLimit - 1) {
-            mCircleFillPaint.setAlpha(alpha);
-        } else {
-            mCircleFillPaint.setAlpha(255);
-        }
-        canvas.drawCircle(x, y, mCircleRadius, mCircleFillPaint);
-        canvas.drawCircle(x, y, mCircleRadius, mCircleStrokePaint);
-
-        String text = biNode.data;
-        Rect rect = new Rect();
-        mTextPaint.getTextBounds(text, 0, text.length(), rect);
-        canvas.drawText(biNode.data, x - rect.width() / 2, y + rect.height() / 2, mTextPaint);
-
+    /**
+     * 设置后每帧汇报绘制耗时等数据，传 null 关闭
+     */
+    public void setMetricsListener(BiTreeMetricsListener metricsListener) {
+        mMetricsListener = metricsListener;
     }
 
-    private void traversalNode(Canvas canvas, String text, int x, int y, boolean isLast) {
-        mCircleFillPaint.setColor(traversalColor);
-        if (isLast) {
-            mCircleFillPaint.setAlpha(alpha);
+    /**
+     * 在左上角显示绘制耗时、可见节点数、布局耗时、步骤延迟和掉帧数，仅用于调试，默认关闭
+     */
+    public void setMetricsOverlayEnabled(boolean enabled) {
+        if (enabled == (mOverlay != null)) {
+            return;
+        }
+        if (enabled) {
+            mOverlayMetrics = new BiTreeMetrics();
+            mOverlayMetrics.onTreeLayout(this, 0, mLayout.count);
+            mOverlay = new BiTreeMetricsOverlay(getResources().getDisplayMetrics().density);
         } else {
-            mCircleFillPaint.setAlpha(255);
+            mOverlayMetrics = null;
+            mOverlay = null;
         }
-        canvas.drawCircle(x, y, mCircleRadius, mCircleFillPaint);
-        canvas.drawCircle(x, y, mCircleRadius, mCircleStrokePaint);
-
-        Rect rect = new Rect();
-        mTextPaint.getTextBounds(text, 0, text.length(), rect);
-        canvas.drawText(text, x - rect.width() / 2, y + rect.height() / 2, mTextPaint);
-
+        invalidate();
     }
 
-    @Override
-    public void onAnimationStart(Animator animation) {
-
-
+    /**
+     * 调试浮层的统计，未打开浮层时为 null
+     */
+    public BiTreeMetrics getOverlayMetrics() {
+        return mOverlayMetrics;
     }
 
     @Override
-    public void onAnimationEnd(Animator animation) {
-        if (mAnimEndListener != null) {
-            mAnimEndListener.animEnd(this);
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        //按屏幕刷新率判断掉帧
+        WindowManager wm = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        Display display = wm == null ? null : wm.getDefaultDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            mFrameIntervalNanos = (long) (1000000000L / display.getRefreshRate());
+        }
+        mDetachedFromWindow = false;
+        if (mBiTree != null) {
+            mBiTree.addChangeListener(mChangeListener);
+            if (mBiTree.getChangeCount() != mDetachedChangeCount) {
+                layoutTree(mBiTree);
+            }
+        }
+        if (mSuspendedLoad != null) {
+            load(mSuspendedLoad);
         }
-
-    }
-
-    @Override
-    public void onAnimationCancel(Animator animation) {
-
     }
 
     @Override
-    public void onAnimationRepeat(Animator animation) {
-
-    }
-
-
-    public void setAnimEndListener(AnimEndListener animEndListener) {
-        mAnimEndListener = animEndListener;
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        //不可见时不再推进，重新显示后可以 resume
+        mPlayer.pause();
+        //后台加载持有 View 的回调，离开窗口时先取消，重新进入窗口后再加载
+        mSuspendedLoad = mLoader == null ? null : mLoader.suspend();
+        mDetachedFromWindow = true;
+        if (mBiTree != null) {
+            mBiTree.removeChangeListener(mChangeListener);
+            mDetachedChangeCount = mBiTree.getChangeCount();
+        }
     }
 }
@@ -0,0 +1,316 @@
+package com.zero.binarytreedraw.widget;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.Choreographer;
+
+/**
+ * 遍历的播放调度：决定每一时刻显示到第几步，以及最后一个节点的透明度
+ * <p>
+ * 播放位置是一个浮点数 position，显示前 floor(position) + 1 步，小数部分是最后一个节点的渐显进度，
+ * 到达步数总数时结束。两种推进方式：
+ * <ul>
+ * <li>{@link #MODE_ANIMATOR}：每一步一次渐显动画，动画结束时直接开始下一步，中间没有消息往返</li>
+ * <li>{@link #MODE_FRAME}：由 Choreographer 每帧按经过的时间推进，或每帧固定显示 N 个节点，
+ * 不会为每个节点重新启动动画，适合大树</li>
+ * </ul>
+ * 所有方法都只在主线程调用。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class TraversalPlayer implements Choreographer.FrameCallback {
+
+    public static final int MODE_ANIMATOR = 0;
+
+    public static final int MODE_FRAME = 1;
+
+    interface Target {
+
+        /**
+         * @param step  显示前 step 步
+         * @param alpha 第 step 步节点的透明度，0 ~ 255
+         */
+        void onPlaybackStep(int step, int alpha);
+
+        void onPlaybackEnd();
+    }
+
+    private static final float DEFAULT_STEPS_PER_SECOND = 1000f / 800;
+
+    private final Target mTarget;
+
+    private int mode = MODE_ANIMATOR;
+
+    private float stepsPerSecond = DEFAULT_STEPS_PER_SECOND;
+
+    /**
+     * 大于 0 时帧模式每帧固定前进这么多步，不再按时间计算
+     */
+    private int nodesPerFrame;
+
+    private int stepCount;
+
+    private double position;
+
+    private boolean playing;
+
+    private boolean paused;
+
+    private long mLastFrameNanos;
+
+    private final ValueAnimator mAnimator;
+
+    /**
+     * 暂停、跳转或切换模式时主动取消动画，此时的 onAnimationEnd 不推进播放
+     */
+    private boolean mCanceling;
+
+    /**
+     * 当前动画渐显的是第 mAnimatorStep + 1 步
+     */
+    private double mAnimatorStep;
+
+    TraversalPlayer(Target target) {
+        mTarget = target;
+        mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                //动画的最后一帧停在本步完全显示，下一步由 onAnimationEnd 开始
+                float value = (float) animation.getAnimatedValue();
+                position = value >= 1f ? Math.nextAfter(mAnimatorStep + 1, 0) : mAnimatorStep + value;
+                dispatchStep();
+            }
+        });
+        mAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                if (!mCanceling) {
+                    onAnimatorStepEnd();
+                }
+            }
+        });
+        updateDuration();
+    }
+
+    public void setMode(int mode) {
+        if (this.mode == mode) {
+            return;
+        }
+        boolean running = isPlaying();
+        stopScheduling();
+        this.mode = mode;
+        if (running) {
+            schedule();
+        }
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * 每秒播放的步数，动画模式下即每个节点渐显时长的倒数
+     */
+    public void setStepsPerSecond(float stepsPerSecond) {
+        if (stepsPerSecond <= 0) {
+            throw new IllegalArgumentException("stepsPerSecond must be positive: " + stepsPerSecond);
+        }
+        this.stepsPerSecond = stepsPerSecond;
+        updateDuration();
+    }
+
+    public float getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    public void setStepDuration(long millis) {
+        setStepsPerSecond(1000f / Math.max(1, millis));
+    }
+
+    /**
+     * 帧模式下每帧显示的节点数，0 表示按 {@link #setStepsPerSecond} 的速度推进
+     */
+    public void setNodesPerFrame(int nodesPerFrame) {
+        this.nodesPerFrame = Math.max(0, nodesPerFrame);
+    }
+
+    public int getNodesPerFrame() {
+        return nodesPerFrame;
+    }
+
+    /**
+     * 从第一步开始播放 stepCount 步
+     */
+    void start(int stepCount) {
+        stopScheduling();
+        this.stepCount = stepCount;
+        position = 0;
+        paused = false;
+        playing = stepCount > 0;
+        dispatchStep();
+        if (playing) {
+            schedule();
+        } else {
+            mTarget.onPlaybackEnd();
+        }
+    }
+
+    /**
+     * 停止播放并回到未开始的状态，不回调 Target
+     */
+    void stop() {
+        stopScheduling();
+        playing = false;
+        paused = false;
+        stepCount = 0;
+        position = 0;
+    }
+
+    /**
+     * 树被修改后步数可能变化，播放位置超出时截断
+     */
+    void setStepCount(int stepCount) {
+        this.stepCount = stepCount;
+        if (position > stepCount) {
+            position = stepCount;
+        }
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * 当前显示的步数
+     */
+    public int getStep() {
+        return stepCount == 0 ? 0 : (int) Math.min(stepCount, Math.floor(position) + 1);
+    }
+
+    public boolean isPlaying() {
+        return playing && !paused;
+    }
+
+    public boolean isPaused() {
+        return playing && paused;
+    }
+
+    public void pause() {
+        if (!playing || paused) {
+            return;
+        }
+        paused = true;
+        stopScheduling();
+    }
+
+    public void resume() {
+        if (!playing || !paused) {
+            return;
+        }
+        paused = false;
+        schedule();
+    }
+
+    /**
+     * 跳到第 step 步，该步的节点完全显示；播放中会从这里继续，已经结束的播放不会重新开始
+     */
+    public void seekTo(int step) {
+        if (stepCount == 0) {
+            return;
+        }
+        step = Math.max(1, Math.min(stepCount, step));
+        boolean running = isPlaying();
+        stopScheduling();
+        //小数部分取到最大，下一次推进即进入 step + 1
+        position = step == stepCount ? stepCount : Math.nextAfter((double) step, 0);
+        dispatchStep();
+        if (position >= stepCount) {
+            finish();
+        } else if (running) {
+            schedule();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isPlaying() || mode != MODE_FRAME) {
+            return;
+        }
+        if (nodesPerFrame > 0) {
+            position = Math.floor(position) + nodesPerFrame;
+        } else if (mLastFrameNanos != 0) {
+            position += (frameTimeNanos - mLastFrameNanos) * (double) stepsPerSecond / 1e9;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        dispatchStep();
+        if (position >= stepCount) {
+            finish();
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void onAnimatorStepEnd() {
+        position = mAnimatorStep + 1;
+        if (position >= stepCount) {
+            dispatchStep();
+            finish();
+        } else {
+            dispatchStep();
+            startAnimator();
+        }
+    }
+
+    private void schedule() {
+        if (mode == MODE_FRAME) {
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            startAnimator();
+        }
+    }
+
+    /**
+     * 从当前步的渐显进度继续
+     */
+    private void startAnimator() {
+        mAnimatorStep = Math.floor(position);
+        float fraction = (float) (position - mAnimatorStep);
+        mAnimator.start();
+        mAnimator.setCurrentPlayTime((long) (fraction * mAnimator.getDuration()));
+    }
+
+    private void stopScheduling() {
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (mAnimator.isStarted()) {
+            mCanceling = true;
+            mAnimator.cancel();
+            mCanceling = false;
+        }
+    }
+
+    private void finish() {
+        position = stepCount;
+        playing = false;
+        paused = false;
+        mTarget.onPlaybackEnd();
+    }
+
+    private void dispatchStep() {
+        int alpha;
+        if (position >= stepCount) {
+            alpha = 255;
+        } else {
+            alpha = (int) Math.min(255, (position - Math.floor(position)) * 256);
+        }
+        mTarget.onPlaybackStep(getStep(), alpha);
+    }
+
+    private void updateDuration() {
+        mAnimator.setDuration((long) (1000 / stepsPerSecond));
+    }
+}
@@ -0,0 +1,170 @@
+package com.zero.binarytreedraw.widget;
+
+/**
+ * 一次遍历的访问顺序，按需要的步数逐步算出前缀，已经算出的部分按步数直接取
+ * <p>
+ * 先序、中序和后序借助布局表的 parent 求后继，不需要栈，每多算一步均摊 O(1)；
+ * 层序把 order 本身当作队列。开始遍历和修改树之后只算到当前步，后退和在已算出的范围内跳转不再计算。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class TraversalSequence {
+
+    public static final int NONE = -1;
+    public static final int PRE_ORDER = 1;
+    public static final int IN_ORDER = 2;
+    public static final int POST_ORDER = 3;
+    public static final int LEVEL_ORDER = 4;
+
+    /**
+     * 按访问顺序排列的节点编号，前 {@link #computed} 个有效
+     */
+    public int[] order = new int[0];
+
+    /**
+     * 总步数，即树的节点数
+     */
+    public int length;
+
+    /**
+     * 已经算出的步数，读取 order 之前用 {@link #ensure(int)} 补足
+     */
+    public int computed;
+
+    public int type = NONE;
+
+    private BiTreeLayout layout;
+
+    /**
+     * 层序时队列的头部，它之前的节点的孩子都已经加入 order
+     */
+    private int head;
+
+    /**
+     * 开始新的访问顺序，此时还没有计算任何一步
+     */
+    public void compute(BiTreeLayout layout, int type) {
+        this.layout = layout;
+        this.type = type;
+        computed = 0;
+        head = 0;
+        length = layout.root < 0 || type == NONE ? 0 : layout.count;
+        if (order.length < length) {
+            order = new int[length];
+        }
+    }
+
+    /**
+     * 算出前 steps 步，超过总步数时算到最后一步
+     */
+    public void ensure(int steps) {
+        steps = Math.min(steps, length);
+        if (computed >= steps) {
+            return;
+        }
+        BiTreeLayout layout = this.layout;
+        if (type == LEVEL_ORDER) {
+            levelOrder(layout, steps);
+            return;
+        }
+        int cur = computed == 0 ? first(layout, type) : order[computed - 1];
+        if (computed == 0) {
+            order[computed++] = cur;
+        }
+        while (computed < steps) {
+            cur = successor(layout, cur, type);
+            order[computed++] = cur;
+        }
+    }
+
+    public void clear() {
+        type = NONE;
+        length = 0;
+        computed = 0;
+        layout = null;
+    }
+
+    private static int first(BiTreeLayout layout, int type) {
+        int cur = layout.root;
+        if (type == IN_ORDER) {
+            while (layout.left[cur] >= 0) {
+                cur = layout.left[cur];
+            }
+        } else if (type == POST_ORDER) {
+            while (layout.left[cur] >= 0 || layout.right[cur] >= 0) {
+                cur = layout.left[cur] >= 0 ? layout.left[cur] : layout.right[cur];
+            }
+        }
+        return cur;
+    }
+
+    private static int successor(BiTreeLayout layout, int cur, int type) {
+        int[] left = layout.left;
+        int[] right = layout.right;
+        int[] parent = layout.parent;
+        int p;
+        switch (type) {
+            case PRE_ORDER:
+                if (left[cur] >= 0) {
+                    return left[cur];
+                }
+                if (right[cur] >= 0) {
+                    return right[cur];
+                }
+                //向上找到第一个作为左孩子、且有右兄弟的祖先
+                p = parent[cur];
+                while (p >= 0 && (left[p] != cur || right[p] < 0)) {
+                    cur = p;
+                    p = parent[cur];
+                }
+                return p < 0 ? -1 : right[p];
+            case IN_ORDER:
+                if (right[cur] >= 0) {
+                    cur = right[cur];
+                    while (left[cur] >= 0) {
+                        cur = left[cur];
+                    }
+                    return cur;
+                }
+                p = parent[cur];
+                while (p >= 0 && right[p] == cur) {
+                    cur = p;
+                    p = parent[cur];
+                }
+                return p;
+            case POST_ORDER:
+                //右孩子或没有右兄弟的左孩子，下一个是父节点，否则是右兄弟子树中后序的第一个节点
+                p = parent[cur];
+                if (p < 0 || right[p] == cur || right[p] < 0) {
+                    return p;
+                }
+                cur = right[p];
+                while (left[cur] >= 0 || right[cur] >= 0) {
+                    cur = left[cur] >= 0 ? left[cur] : right[cur];
+                }
+                return cur;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * order 本身就作为队列使用，每处理一个节点最多加入两个孩子
+     */
+    private void levelOrder(BiTreeLayout layout, int steps) {
+        if (computed == 0) {
+            order[computed++] = layout.root;
+        }
+        while (computed < steps) {
+            int cur = order[head++];
+            if (layout.left[cur] >= 0) {
+                order[computed++] = layout.left[cur];
+            }
+            if (layout.right[cur] >= 0) {
+                order[computed++] = layout.right[cur];
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.zero.binarytreedraw.widget;
+
+import android.view.View;
+
+/**
+ * 后台加载树的结果，均在主线程回调；被新的加载取消时不会回调
+ * <p>
+ * 视图离开窗口时未完成的加载会被取消：来自字符序列的加载在重新进入窗口后重新开始，
+ * 来自 Reader 的加载无法重新读取，以 {@link java.util.concurrent.CancellationException} 回调 onTreeLoadFailed
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface TreeLoadListener {
+
+    void onTreeLoaded(View view);
+
+    void onTreeLoadFailed(View view, Exception e);
+}
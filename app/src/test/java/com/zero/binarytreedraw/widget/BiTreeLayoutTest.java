@@ -0,0 +1,284 @@
+package com.zero.binarytreedraw.widget;
+
+import com.zero.binarytreedraw.datastruture.BiNode;
+import com.zero.binarytreedraw.datastruture.BiTree;
+import com.zero.binarytreedraw.datastruture.BiTreeChangeListener;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 随机修改 BiTree 后，增量排布应与整棵重新计算的结果相同，dirty* 应覆盖所有位置或连线变化的节点；
+ * 紧凑排布的节点不重叠且父节点居中
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeLayoutTest {
+
+    private static final int RUNS = 100;
+
+    private static final int EDITS = 40;
+
+    private static final int MAX_SIZE = 60;
+
+    private static final int RADIUS = 20;
+    private static final int X_GAP = 10;
+    private static final int Y_GAP = 40;
+    private static final int OFFSET = 30;
+
+    @Test
+    public void replaceSubtree_fullMode_matchesCompute() {
+        runEdits(BiTreeLayout.MODE_FULL, new Random(1));
+    }
+
+    @Test
+    public void replaceSubtree_compactMode_matchesCompute() {
+        runEdits(BiTreeLayout.MODE_COMPACT, new Random(2));
+    }
+
+    @Test
+    public void relayoutSubtree_matchesCompute() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree(randomSubtree(random, 1 + random.nextInt(MAX_SIZE)));
+            BiTreeLayout layout = newLayout(BiTreeLayout.MODE_COMPACT);
+            layout.compute(biTree);
+            int i = random.nextInt(layout.count);
+            layout.relayout(i);
+            assertSameLayout(biTree, BiTreeLayout.MODE_COMPACT, layout);
+        }
+    }
+
+    /**
+     * Reingold-Tilford 排布：同一层相邻的节点至少相隔 2 * (半径 + 间隔)，两个孩子的父节点居中，
+     * 单个孩子偏向一侧半个间距，所有节点都在 [0, width] 内
+     */
+    @Test
+    public void compactMode_noOverlapAndParentsCentred() {
+        Random random = new Random(4);
+        int minSep = 2 * (RADIUS + X_GAP);
+        for (int run = 0; run < RUNS; run++) {
+            int size = 1 + random.nextInt(5 * MAX_SIZE);
+            BiTree biTree = new BiTree(random.nextInt(10) == 0 ? randomChain(random, size) : randomSubtree(random, size));
+            BiTreeLayout layout = newLayout(BiTreeLayout.MODE_COMPACT);
+            layout.compute(biTree);
+
+            //先序中同一层的节点从左到右出现
+            int[] lastX = new int[layout.treeHeight + 1];
+            boolean[] seen = new boolean[layout.treeHeight + 1];
+            for (int i = 0; i < layout.count; i++) {
+                int d = layout.depth[i];
+                if (seen[d]) {
+                    assertTrue("overlap at node " + i, layout.x[i] - lastX[d] >= minSep);
+                }
+                seen[d] = true;
+                lastX[d] = layout.x[i];
+                assertTrue(layout.x[i] - RADIUS >= 0 && layout.x[i] + RADIUS <= layout.width);
+
+                int l = layout.left[i];
+                int r = layout.right[i];
+                if (l >= 0 && r >= 0) {
+                    int skew = (layout.x[r] - layout.x[i]) - (layout.x[i] - layout.x[l]);
+                    assertTrue("parent " + i + " not centred", skew == 0 || skew == 1);
+                } else if (l >= 0) {
+                    assertEquals(-minSep / 2, layout.x[l] - layout.x[i]);
+                } else if (r >= 0) {
+                    assertEquals(minSep / 2, layout.x[r] - layout.x[i]);
+                }
+            }
+        }
+    }
+
+    private void runEdits(int mode, Random random) {
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree(randomSubtree(random, 1 + random.nextInt(MAX_SIZE)));
+            final BiTreeLayout layout = newLayout(mode);
+            layout.compute(biTree);
+            final Snapshot before = new Snapshot();
+            final int[] change = new int[3];
+            biTree.addChangeListener(new BiTreeChangeListener() {
+                @Override
+                public void onSubtreeReplaced(BiTree biTree, int parentIndex, boolean isLeft, int index, int oldSize) {
+                    BiNode subtree;
+                    if (parentIndex < 0) {
+                        subtree = biTree.getRoot();
+                    } else {
+                        BiNode parent = biTree.getNode(parentIndex);
+                        subtree = isLeft ? parent.leftChild : parent.rightChild;
+                    }
+                    before.copy(layout);
+                    change[0] = index;
+                    change[1] = oldSize;
+                    change[2] = subtree == null ? 0 : subtree.size;
+                    layout.replaceSubtree(parentIndex, isLeft, index, oldSize, subtree);
+                }
+
+                @Override
+                public void onLabelChanged(BiTree biTree, int index) {
+                }
+            });
+
+            for (int edit = 0; edit < EDITS; edit++) {
+                edit(biTree, random);
+                assertSameLayout(biTree, mode, layout);
+                assertDirtyCovers(before, layout, change[0], change[1], change[2]);
+            }
+        }
+    }
+
+    private static void edit(BiTree biTree, Random random) {
+        int n = biTree.getNodeCount();
+        int index = random.nextInt(n);
+        switch (random.nextInt(6)) {
+            case 0:
+                biTree.insertLeft(index, "L" + index);
+                break;
+            case 1:
+                biTree.insertRight(index, "R" + index);
+                break;
+            case 2:
+                biTree.setLeftSubtree(index, random.nextBoolean() ? null : randomSubtree(random, 1 + random.nextInt(8)));
+                break;
+            case 3:
+                biTree.setRightSubtree(index, random.nextBoolean() ? null : randomSubtree(random, 1 + random.nextInt(8)));
+                break;
+            case 4:
+                if (index > 0) {
+                    biTree.removeSubtree(index);
+                } else {
+                    biTree.replaceSubtree(0, randomSubtree(random, 1 + random.nextInt(MAX_SIZE)));
+                }
+                break;
+            default:
+                biTree.replaceSubtree(index, randomSubtree(random, 1 + random.nextInt(8)));
+                break;
+        }
+    }
+
+    private static void assertSameLayout(BiTree biTree, int mode, BiTreeLayout layout) {
+        BiTreeLayout expected = newLayout(mode);
+        expected.compute(biTree);
+        assertEquals(expected.count, layout.count);
+        assertEquals(expected.root, layout.root);
+        assertEquals(expected.treeHeight, layout.treeHeight);
+        assertEquals(expected.width, layout.width);
+        assertEquals(expected.height, layout.height);
+        int n = expected.count;
+        assertArrayEquals(Arrays.copyOf(expected.labels, n), Arrays.copyOf(layout.labels, n));
+        assertArrayEquals(Arrays.copyOf(expected.left, n), Arrays.copyOf(layout.left, n));
+        assertArrayEquals(Arrays.copyOf(expected.right, n), Arrays.copyOf(layout.right, n));
+        assertArrayEquals(Arrays.copyOf(expected.parent, n), Arrays.copyOf(layout.parent, n));
+        assertArrayEquals(Arrays.copyOf(expected.depth, n), Arrays.copyOf(layout.depth, n));
+        assertArrayEquals(Arrays.copyOf(expected.x, n), Arrays.copyOf(layout.x, n));
+        assertArrayEquals(Arrays.copyOf(expected.y, n), Arrays.copyOf(layout.y, n));
+        assertArrayEquals(Arrays.copyOf(expected.edges, n * 4), Arrays.copyOf(layout.edges, n * 4), 0f);
+    }
+
+    /**
+     * 被删除的节点、新增的节点以及自身或父节点移动过的节点，新旧两处的圆都必须在 dirty* 内，
+     * 连线的两端都在其中，连线也就被覆盖了
+     */
+    private static void assertDirtyCovers(Snapshot before, BiTreeLayout layout, int index, int oldSize, int newSize) {
+        int delta = newSize - oldSize;
+        for (int i = index; i < index + oldSize; i++) {
+            assertCovered(layout, before.x[i], before.y[i]);
+            assertCovered(layout, before, before.parent[i]);
+        }
+        for (int i = 0; i < layout.count; i++) {
+            int p = layout.parent[i];
+            if (i >= index && i < index + newSize) {
+                assertCovered(layout, layout.x[i], layout.y[i]);
+                if (p >= 0) {
+                    assertCovered(layout, layout.x[p], layout.y[p]);
+                }
+                continue;
+            }
+            int old = i < index ? i : i - delta;
+            int oldParent = before.parent[old];
+            boolean moved = layout.x[i] != before.x[old] || layout.y[i] != before.y[old]
+                    || (p >= 0 && (layout.x[p] != before.x[oldParent] || layout.y[p] != before.y[oldParent]));
+            if (moved) {
+                assertCovered(layout, before.x[old], before.y[old]);
+                assertCovered(layout, before, oldParent);
+                assertCovered(layout, layout.x[i], layout.y[i]);
+                if (p >= 0) {
+                    assertCovered(layout, layout.x[p], layout.y[p]);
+                }
+            }
+        }
+    }
+
+    private static void assertCovered(BiTreeLayout layout, Snapshot before, int oldIndex) {
+        if (oldIndex >= 0) {
+            assertCovered(layout, before.x[oldIndex], before.y[oldIndex]);
+        }
+    }
+
+    private static void assertCovered(BiTreeLayout layout, int x, int y) {
+        assertTrue("(" + x + ", " + y + ") outside dirty rect",
+                x - RADIUS >= layout.dirtyLeft && x + RADIUS <= layout.dirtyRight
+                        && y - RADIUS >= layout.dirtyTop && y + RADIUS <= layout.dirtyBottom);
+    }
+
+    private static BiTreeLayout newLayout(int mode) {
+        BiTreeLayout layout = new BiTreeLayout(RADIUS, X_GAP, Y_GAP, OFFSET);
+        layout.setMode(mode);
+        return layout;
+    }
+
+    /**
+     * size 个节点的随机形状子树，左子树大小在 [0, size) 中均匀选取
+     */
+    private static BiNode randomSubtree(Random random, int size) {
+        if (size == 0) {
+            return null;
+        }
+        BiNode biNode = new BiNode();
+        biNode.data = "n" + random.nextInt(50);
+        int leftSize = random.nextInt(size);
+        biNode.leftChild = randomSubtree(random, leftSize);
+        biNode.rightChild = randomSubtree(random, size - 1 - leftSize);
+        return biNode;
+    }
+
+    /**
+     * size 个节点的单链，每个节点随机挂在左边或右边
+     */
+    private static BiNode randomChain(Random random, int size) {
+        BiNode root = new BiNode();
+        root.data = "c0";
+        BiNode cur = root;
+        for (int i = 1; i < size; i++) {
+            BiNode next = new BiNode();
+            next.data = "c" + i;
+            if (random.nextBoolean()) {
+                cur.leftChild = next;
+            } else {
+                cur.rightChild = next;
+            }
+            cur = next;
+        }
+        return root;
+    }
+
+    /**
+     * 修改前的坐标和父节点编号
+     */
+    private static final class Snapshot {
+        int[] x;
+        int[] y;
+        int[] parent;
+
+        void copy(BiTreeLayout layout) {
+            x = Arrays.copyOf(layout.x, layout.count);
+            y = Arrays.copyOf(layout.y, layout.count);
+            parent = Arrays.copyOf(layout.parent, layout.count);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.zero.binarytreedraw.benchmark;
+
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 建树：从字符串和从 Reader 解析
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@Fork(jvmArgsAppend = {"-Xss256k", "-Xmx6g"})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BuildBenchmark {
+
+    @Benchmark
+    public BiTree createFromString(TreeState state) {
+        return new BiTree().createBiTree(state.source);
+    }
+
+    @Benchmark
+    public BiTree createFromReader(TreeState state) throws IOException {
+        return new BiTree().createBiTree(new StringReader(state.source));
+    }
+}
@@ -0,0 +1,128 @@
+package com.zero.binarytreedraw.benchmark;
+
+import com.zero.binarytreedraw.datastruture.BiNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * 按 BiTree 中非递归遍历的写法重走一遍，只统计显式栈或队列达到的最大长度，不访问标签
+ * <p>
+ * 在 Setup 中调用，不计入测量；BiTree 本身不为基准保留任何计数。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+final class Frontier {
+
+    private Frontier() {
+    }
+
+    /**
+     * 先序：弹出一个节点后压入右、左孩子；getLevel 的查找走同样的栈
+     */
+    static int preOrder(BiNode root) {
+        if (root == null) {
+            return 0;
+        }
+        BiNode[] stack = new BiNode[16];
+        int top = 0;
+        int peak = 1;
+        stack[top++] = root;
+        while (top > 0) {
+            BiNode biNode = stack[--top];
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (biNode.rightChild != null) {
+                stack[top++] = biNode.rightChild;
+            }
+            if (biNode.leftChild != null) {
+                stack[top++] = biNode.leftChild;
+            }
+            peak = Math.max(peak, top);
+        }
+        return peak;
+    }
+
+    /**
+     * 中序：沿左孩子一路压栈，栈里是当前节点到根路径上还没有访问的祖先
+     */
+    static int inOrder(BiNode root) {
+        int top = 0;
+        int peak = 0;
+        BiNode[] stack = new BiNode[16];
+        BiNode cur = root;
+        while (cur != null || top > 0) {
+            while (cur != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = cur;
+                cur = cur.leftChild;
+            }
+            peak = Math.max(peak, top);
+            cur = stack[--top];
+            cur = cur.rightChild;
+        }
+        return peak;
+    }
+
+    /**
+     * 后序和重新统计：栈里是从根到当前节点的整条路径，最大长度即树高
+     */
+    static int postOrder(BiNode root) {
+        if (root == null) {
+            return 0;
+        }
+        BiNode[] stack = new BiNode[16];
+        int top = 0;
+        int peak = 1;
+        stack[top++] = root;
+        BiNode last = null;
+        while (top > 0) {
+            BiNode cur = stack[top - 1];
+            BiNode next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+            if (next != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = next;
+                peak = Math.max(peak, top);
+            } else {
+                top--;
+            }
+            last = cur;
+        }
+        return peak;
+    }
+
+    /**
+     * 层序：队列最长时是最宽一层的节点数，不受树高限制
+     */
+    static int levelOrder(BiNode root) {
+        if (root == null) {
+            return 0;
+        }
+        ArrayDeque<BiNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        int peak = 1;
+        while (!queue.isEmpty()) {
+            BiNode biNode = queue.poll();
+            if (biNode.leftChild != null) {
+                queue.add(biNode.leftChild);
+            }
+            if (biNode.rightChild != null) {
+                queue.add(biNode.rightChild);
+            }
+            peak = Math.max(peak, queue.size());
+        }
+        return peak;
+    }
+}
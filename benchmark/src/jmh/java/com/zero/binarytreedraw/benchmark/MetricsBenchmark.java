@@ -0,0 +1,48 @@
+package com.zero.binarytreedraw.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高度、层数和节点数的查询，以及重新统计整棵树
+ * <p>
+ * height / getNodeCount 读取缓存值，应与规模无关；
+ * getLevel 查找不存在的标签，是一次完整的先序遍历。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@Fork(jvmArgsAppend = {"-Xss256k", "-Xmx6g"})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MetricsBenchmark {
+
+    @Benchmark
+    public int height(TreeState state) {
+        return state.tree.height();
+    }
+
+    @Benchmark
+    public int nodeCount(TreeState state) {
+        return state.tree.getNodeCount();
+    }
+
+    @Benchmark
+    public int levelOfRoot(TreeState state) {
+        return state.tree.getLevel(state.tree.getRoot().data);
+    }
+
+    @Benchmark
+    public int levelOfMissing(TreeState state) {
+        return state.tree.getLevel(TreeShapes.MISSING_LABEL);
+    }
+
+    @Benchmark
+    public int updateMetrics(TreeState state) {
+        state.tree.updateMetrics();
+        return state.tree.height();
+    }
+}
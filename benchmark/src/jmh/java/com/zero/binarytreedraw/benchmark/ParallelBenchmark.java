@@ -0,0 +1,68 @@
+package com.zero.binarytreedraw.benchmark;
+
+import com.zero.binarytreedraw.datastruture.BiTreeParallel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重新统计和整棵树输出的并行版本，与 {@link MetricsBenchmark} / {@link TraversalBenchmark}
+ * 中的顺序版本对照；小于阈值的树直接走顺序实现，两者应当持平
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@Fork(jvmArgsAppend = {"-Xss256k", "-Xmx6g"})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParallelBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PoolState {
+
+        public ForkJoinPool pool;
+
+        public BiTreeParallel parallel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool();
+            parallel = new BiTreeParallel(pool);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int updateMetrics(TreeState state, PoolState pool) {
+        pool.parallel.updateMetrics(state.tree);
+        return state.tree.height();
+    }
+
+    @Benchmark
+    public String preOrder(TreeState state, PoolState pool) {
+        return pool.parallel.getPreOrderTraversal(state.tree);
+    }
+
+    @Benchmark
+    public String postOrder(TreeState state, PoolState pool) {
+        return pool.parallel.getPostOrderTraversal(state.tree);
+    }
+
+    @Benchmark
+    public String serialize(TreeState state, PoolState pool) {
+        return pool.parallel.serialize(state.tree);
+    }
+}
@@ -0,0 +1,84 @@
+package com.zero.binarytreedraw.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 报告基准所用遍历的显式栈或队列的最大长度
+ * <p>
+ * 数值由 {@link TreeState} 建树后用 {@link Frontier} 重走一遍得到：先序、中序、后序和统计是栈的最大深度，
+ * 层序是队列的最大长度（最宽一层）。遍历和统计都用显式栈实现，JVM 调用栈深度与树无关；基准以 -Xss256k 运行，
+ * 若改回递归，10^7 节点的单链会直接 StackOverflowError。
+ * 只对 {@link TraversalBenchmark} 和 {@link MetricsBenchmark} 报告，建树、并行版本和只读缓存值的基准报告 0。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class StackDepthProfiler implements InternalProfiler {
+
+    /**
+     * 每组参数在单独的 fork 中运行，内部 profiler 与基准在同一个 fork 中，静态字段不会串到其他参数
+     */
+    private static volatile int sPreOrder;
+    private static volatile int sInOrder;
+    private static volatile int sPostOrder;
+    private static volatile int sLevelOrder;
+
+    static void record(int preOrder, int inOrder, int postOrder, int levelOrder) {
+        sPreOrder = preOrder;
+        sInOrder = inOrder;
+        sPostOrder = postOrder;
+        sLevelOrder = levelOrder;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Maximum explicit stack or queue length reached by the tree traversals";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams,
+                                                       IterationResult result) {
+        return Collections.singletonList(
+                new ScalarResult("·stack.depth", depthOf(benchmarkParams.getBenchmark()), "nodes", AggregationPolicy.MAX));
+    }
+
+    private static int depthOf(String benchmark) {
+        int dot = benchmark.lastIndexOf('.');
+        String className = benchmark.substring(0, dot);
+        String method = benchmark.substring(dot + 1);
+        if (className.equals(TraversalBenchmark.class.getName())) {
+            if (method.endsWith("reOrder")) {
+                return sPreOrder;
+            } else if (method.equals("inOrder")) {
+                return sInOrder;
+            } else if (method.equals("postOrder")) {
+                return sPostOrder;
+            } else if (method.endsWith("evelOrder")) {
+                return sLevelOrder;
+            }
+        } else if (className.equals(MetricsBenchmark.class.getName())) {
+            //getLevel 是先序查找，updateMetrics 与后序一样栈里是整条路径
+            if (method.startsWith("levelOf")) {
+                return sPreOrder;
+            } else if (method.equals("updateMetrics")) {
+                return sPostOrder;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.zero.binarytreedraw.benchmark;
+
+import com.zero.binarytreedraw.datastruture.TraversalWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 四种遍历，每次都生成完整的结果字符串；stream* 经过固定缓冲区写到只计数的 sink，对比不保留结果时的开销
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@Fork(jvmArgsAppend = {"-Xss256k", "-Xmx6g"})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TraversalBenchmark {
+
+    @Benchmark
+    public String preOrder(TreeState state) {
+        return state.tree.getPreOrderTraversal();
+    }
+
+    @Benchmark
+    public String inOrder(TreeState state) {
+        return state.tree.getInOrderTraversal();
+    }
+
+    @Benchmark
+    public String postOrder(TreeState state) {
+        return state.tree.getPostOrderTraversal();
+    }
+
+    @Benchmark
+    public String levelOrder(TreeState state) {
+        return state.tree.getLevelOrderTraversal();
+    }
+
+    @Benchmark
+    public long streamPreOrder(TreeState state) throws IOException {
+        CountingSink sink = new CountingSink();
+        state.tree.writePreOrderTraversal(new TraversalWriter(sink, ""));
+        return sink.count;
+    }
+
+    @Benchmark
+    public long streamLevelOrder(TreeState state) throws IOException {
+        CountingSink sink = new CountingSink();
+        state.tree.writeLevelOrderTraversal(new TraversalWriter(sink, ""));
+        return sink.count;
+    }
+
+    private static final class CountingSink implements TraversalWriter.ChunkSink {
+
+        long count;
+
+        @Override
+        public void write(char[] chunk, int length) {
+            count += length;
+        }
+    }
+}
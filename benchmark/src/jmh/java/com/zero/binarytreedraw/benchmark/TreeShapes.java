@@ -0,0 +1,73 @@
+package com.zero.binarytreedraw.benchmark;
+
+import java.util.Random;
+
+/**
+ * 生成指定形状和节点数的先序序列，'#' 表示空节点
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public final class TreeShapes {
+
+    public enum Shape {
+        /**
+         * 左右子树节点数最多差一，高度约为 log2(n)
+         */
+        BALANCED,
+        /**
+         * 只有左孩子的单链，高度为 n
+         */
+        SKEWED,
+        /**
+         * 左子树节点数在 [0, n) 中均匀随机，期望高度为 O(log n)
+         */
+        RANDOM
+    }
+
+    /**
+     * 节点标签取自这些字符，不包含 {@link #MISSING_LABEL}
+     */
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    public static final String MISSING_LABEL = "?";
+
+    private TreeShapes() {
+    }
+
+    public static String preOrder(Shape shape, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(2 * size + 1);
+        //栈中存放待生成子树的节点数，先生成左子树，所以右子树先入栈
+        int[] stack = new int[size + 2];
+        int top = 0;
+        stack[top++] = size;
+        int label = 0;
+        while (top > 0) {
+            int n = stack[--top];
+            if (n == 0) {
+                sb.append('#');
+                continue;
+            }
+            sb.append(ALPHABET.charAt(label));
+            label = (label + 1) % ALPHABET.length();
+
+            int left;
+            switch (shape) {
+                case SKEWED:
+                    left = n - 1;
+                    break;
+                case RANDOM:
+                    left = random.nextInt(n);
+                    break;
+                default:
+                    left = (n - 1) / 2;
+                    break;
+            }
+            stack[top++] = n - 1 - left;
+            stack[top++] = left;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.zero.binarytreedraw.benchmark;
+
+import com.zero.binarytreedraw.datastruture.BiNode;
+import com.zero.binarytreedraw.datastruture.BiTree;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 各基准共用的输入：每种形状、每个规模生成一次序列并建好树
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+
+    @Param({"BALANCED", "SKEWED", "RANDOM"})
+    public TreeShapes.Shape shape;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    public String source;
+
+    public BiTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = TreeShapes.preOrder(shape, size, 42L);
+        tree = new BiTree(source);
+        BiNode root = tree.getRoot();
+        StackDepthProfiler.record(Frontier.preOrder(root), Frontier.inOrder(root),
+                Frontier.postOrder(root), Frontier.levelOrder(root));
+    }
+}
@@ -0,0 +1,30 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2018/3/6
+ */
+public class BiNode {
+
+    public String data;
+
+    public BiNode leftChild;
+
+    public BiNode rightChild;
+
+    /**
+     * 节点所在层，根节点为 1
+     */
+    public int depth = 1;
+
+    /**
+     * 以该节点为根的子树节点数
+     */
+    public int size = 1;
+
+    /**
+     * 以该节点为根的子树高度，叶子节点为 1
+     */
+    public int height = 1;
+}
@@ -0,0 +1,17 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * 子树汇总：空子树取 {@link #empty()}，节点的值由左右子树的值合并得到
+ * <p>
+ * 并行汇总时会在多个线程上同时调用，实现不能依赖可变状态。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface BiNodeAggregator<T> {
+
+    T empty();
+
+    T combine(BiNode biNode, T left, T right);
+}
@@ -0,0 +1,13 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * {@link CompactBiTree} 的遍历回调，参数为节点的先序编号
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface BiNodeIndexVisitor {
+
+    void visit(int index);
+}
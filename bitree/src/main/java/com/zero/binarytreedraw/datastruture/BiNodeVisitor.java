@@ -0,0 +1,13 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * 遍历回调，遍历过程中每个节点回调一次
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface BiNodeVisitor {
+
+    void visit(BiNode biNode);
+}
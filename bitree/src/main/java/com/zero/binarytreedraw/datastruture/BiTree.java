@@ -0,0 +1,526 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2018/3/6
+ */
+public class BiTree {
+
+    private BiNode root;
+
+    private final ArrayList<BiTreeChangeListener> listeners = new ArrayList<>();
+
+    /**
+     * 结构修改的次数，游标据此发现创建之后树被修改过
+     */
+    int modCount;
+
+    /**
+     * 所有修改的次数，包括标签和 {@link #updateMetrics()}
+     */
+    private int changeCount;
+
+    /**
+     * 游标共用的父节点和层序链接，第一次创建游标时建立，结构修改时丢弃
+     */
+    private BiTreeLinks links;
+
+    public BiTree() {
+        root = new BiNode();
+    }
+
+    public BiTree(BiNode root) {
+        this.root = root;
+        updateMetrics();
+    }
+
+    public BiTree(CharSequence s) {
+        createBiTree(s);
+    }
+
+    public BiTree createBiTree(String[] elems) {
+        int oldSize = getNodeCount();
+        root = BiTreeParser.parse(elems);
+        dispatchSubtreeReplaced(-1, true, 0, oldSize);
+        return this;
+    }
+
+    public BiTree createBiTree(CharSequence src) {
+        int oldSize = getNodeCount();
+        root = BiTreeParser.parse(src);
+        dispatchSubtreeReplaced(-1, true, 0, oldSize);
+        return this;
+    }
+
+    public BiTree createBiTree(Reader reader) throws IOException {
+        int oldSize = getNodeCount();
+        root = BiTreeParser.parse(reader);
+        dispatchSubtreeReplaced(-1, true, 0, oldSize);
+        return this;
+    }
+
+    public BiTree createBiTree(ByteBuffer buffer) {
+        int oldSize = getNodeCount();
+        root = BiTreeParser.parse(buffer);
+        dispatchSubtreeReplaced(-1, true, 0, oldSize);
+        return this;
+    }
+
+    public BiNode getRoot() {
+        return root;
+    }
+
+    /**
+     * 按标签查找第一个（先序）匹配节点所在的层，找不到返回 0
+     * <p>
+     * 标签可能重复，已经拿到节点时应使用 {@link #getLevel(BiNode)}
+     */
+    public int getLevel(String key) {
+        BiNode biNode = find(key);
+        return biNode == null ? 0 : biNode.depth;
+    }
+
+    public int getLevel(BiNode biNode) {
+        return biNode.depth;
+    }
+
+    public BiNode find(String key) {
+        if (root == null) {
+            return null;
+        }
+        BiNode[] stack = new BiNode[root.height + 1];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            BiNode biNode = stack[--top];
+            if (key.equals(biNode.data)) {
+                return biNode;
+            }
+            if (biNode.rightChild != null) {
+                stack[top++] = biNode.rightChild;
+            }
+            if (biNode.leftChild != null) {
+                stack[top++] = biNode.leftChild;
+            }
+        }
+        return null;
+    }
+
+    public int height() {
+        return height(root);
+    }
+
+    public int height(BiNode root) {
+        return root == null ? 0 : root.height;
+    }
+
+    /**
+     * 重新计算整棵树的 depth / size / height，直接修改 BiNode 的孩子后需要调用
+     */
+    public void updateMetrics() {
+        updateMetrics(root, 1);
+        metricsUpdated();
+    }
+
+    /**
+     * depth / size / height 被整体重新计算之后调用，孩子可能被直接改过：
+     * 已有的游标和链接失效，视图据此知道需要重新排布
+     */
+    void metricsUpdated() {
+        modCount++;
+        changeCount++;
+        links = null;
+    }
+
+    /**
+     * 非递归后序遍历，先向下设置 depth，回溯时汇总 size 和 height
+     */
+    static void updateMetrics(BiNode biNode, int depth) {
+        if (biNode == null) {
+            return;
+        }
+        BiNode[] stack = new BiNode[16];
+        int top = 0;
+        biNode.depth = depth;
+        stack[top++] = biNode;
+
+        BiNode last = null;
+        while (top > 0) {
+            BiNode cur = stack[top - 1];
+            BiNode next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+
+            if (next != null) {
+                next.depth = cur.depth + 1;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = next;
+            } else {
+                int leftSize = cur.leftChild == null ? 0 : cur.leftChild.size;
+                int rightSize = cur.rightChild == null ? 0 : cur.rightChild.size;
+                int leftHeight = cur.leftChild == null ? 0 : cur.leftChild.height;
+                int rightHeight = cur.rightChild == null ? 0 : cur.rightChild.height;
+                cur.size = leftSize + rightSize + 1;
+                cur.height = Math.max(leftHeight, rightHeight) + 1;
+                top--;
+            }
+            last = cur;
+        }
+    }
+
+    public String getPreOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        preOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getInOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        inOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getPostOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        postOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getLevelOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        levelOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    /**
+     * 按 writer 的分隔符把先序遍历结果分块写出，不在内存中保留整个结果
+     */
+    public void writePreOrderTraversal(TraversalWriter writer) throws IOException {
+        preOrder(writer);
+        writer.flush();
+    }
+
+    public void writeInOrderTraversal(TraversalWriter writer) throws IOException {
+        inOrder(writer);
+        writer.flush();
+    }
+
+    public void writePostOrderTraversal(TraversalWriter writer) throws IOException {
+        postOrder(writer);
+        writer.flush();
+    }
+
+    public void writeLevelOrderTraversal(TraversalWriter writer) throws IOException {
+        levelOrder(writer);
+        writer.flush();
+    }
+
+    /**
+     * 非递归先序遍历，栈按树高一次分配，遍历过程中不再分配内存
+     */
+    public void preOrder(BiNodeVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+        BiNode[] stack = newStack();
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            BiNode biNode = stack[--top];
+            visitor.visit(biNode);
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (biNode.rightChild != null) {
+                stack[top++] = biNode.rightChild;
+            }
+            if (biNode.leftChild != null) {
+                stack[top++] = biNode.leftChild;
+            }
+        }
+    }
+
+    public void inOrder(BiNodeVisitor visitor) {
+        BiNode[] stack = newStack();
+        int top = 0;
+        BiNode cur = root;
+        while (cur != null || top > 0) {
+            while (cur != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = cur;
+                cur = cur.leftChild;
+            }
+            cur = stack[--top];
+            visitor.visit(cur);
+            cur = cur.rightChild;
+        }
+    }
+
+    public void postOrder(BiNodeVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+        BiNode[] stack = newStack();
+        int top = 0;
+        stack[top++] = root;
+
+        BiNode last = null;
+        while (top > 0) {
+            BiNode cur = stack[top - 1];
+            BiNode next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+
+            if (next != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = next;
+            } else {
+                visitor.visit(cur);
+                top--;
+            }
+            last = cur;
+        }
+    }
+
+    public void levelOrder(BiNodeVisitor visitor) {
+        if (root == null) {
+            return;
+        }
+
+        Queue<BiNode> queue = new ArrayDeque<>();
+        queue.add(root);
+
+        BiNode curNode;
+        while (!queue.isEmpty()) {
+            curNode = queue.poll();
+            visitor.visit(curNode);
+
+            if (curNode.leftChild != null) {
+                queue.add(curNode.leftChild);
+            }
+            if (curNode.rightChild != null) {
+                queue.add(curNode.rightChild);
+            }
+        }
+    }
+
+    /**
+     * 按 order（{@link BiTreeCursor#PRE_ORDER} 等）前后移动的游标
+     * <p>
+     * 父节点和层序链接放在树之外的 {@link BiTreeLinks} 中，BiNode 不为此多占空间；
+     * 第一次创建游标时 O(n) 建立，之后的游标共用，树被修改后重新建立。
+     * 创建之后修改树，游标再移动时抛出 ConcurrentModificationException
+     */
+    public BiTreeCursor cursor(int order) {
+        if (links == null) {
+            links = BiTreeLinks.build(root);
+        }
+        return new BiTreeCursor(this, links, order);
+    }
+
+    private BiNode[] newStack() {
+        return new BiNode[root == null ? 1 : root.height + 1];
+    }
+
+    /**
+     * 每次修改（结构、标签或重新统计）都会改变，暂时不监听的一方可以据此判断期间树是否变过
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    public int getNodeCount() {
+        return root == null ? 0 : root.size;
+    }
+
+    public void addChangeListener(BiTreeChangeListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeChangeListener(BiTreeChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 先序编号为 index 的节点，借助子树大小在 O(树高) 内找到
+     */
+    public BiNode getNode(int index) {
+        BiNode[] path = path(index);
+        return path[path.length - 1];
+    }
+
+    public void setLabel(int index, String label) {
+        getNode(index).data = label;
+        dispatchLabelChanged(index);
+    }
+
+    /**
+     * 在 index 节点和它原来的左子树之间插入新节点，原来的左子树成为新节点的左子树
+     */
+    public BiNode insertLeft(int index, String label) {
+        BiNode parent = getNode(index);
+        BiNode biNode = new BiNode();
+        biNode.data = label;
+        biNode.leftChild = parent.leftChild;
+        setLeftSubtree(index, biNode);
+        return biNode;
+    }
+
+    /**
+     * 在 index 节点和它原来的右子树之间插入新节点，原来的右子树成为新节点的右子树
+     */
+    public BiNode insertRight(int index, String label) {
+        BiNode parent = getNode(index);
+        BiNode biNode = new BiNode();
+        biNode.data = label;
+        biNode.rightChild = parent.rightChild;
+        setRightSubtree(index, biNode);
+        return biNode;
+    }
+
+    /**
+     * 把 index 节点的左子树换成 subtree，为 null 时删除左子树
+     */
+    public void setLeftSubtree(int index, BiNode subtree) {
+        replaceChild(path(index), index, true, subtree);
+    }
+
+    public void setRightSubtree(int index, BiNode subtree) {
+        replaceChild(path(index), index, false, subtree);
+    }
+
+    /**
+     * 用 subtree 替换以 index 为根的子树，为 null 时删除该子树
+     */
+    public void replaceSubtree(int index, BiNode subtree) {
+        BiNode[] path = path(index);
+        if (path.length == 1) {
+            int oldSize = getNodeCount();
+            root = subtree;
+            updateMetrics(root, 1);
+            dispatchSubtreeReplaced(-1, true, 0, oldSize);
+            return;
+        }
+        BiNode parent = path[path.length - 2];
+        BiNode[] parentPath = Arrays.copyOf(path, path.length - 1);
+        replaceChild(parentPath, parentIndex(index, parent, path[path.length - 1]), parent.leftChild == path[path.length - 1], subtree);
+    }
+
+    public void removeSubtree(int index) {
+        replaceSubtree(index, null);
+    }
+
+    /**
+     * 替换子树后只重新统计新子树，以及从父节点到根路径上的 size / height
+     */
+    private void replaceChild(BiNode[] path, int parentIndex, boolean isLeft, BiNode subtree) {
+        BiNode parent = path[path.length - 1];
+        BiNode old = isLeft ? parent.leftChild : parent.rightChild;
+        int oldSize = old == null ? 0 : old.size;
+        int index = parentIndex + 1 + (isLeft || parent.leftChild == null ? 0 : parent.leftChild.size);
+        if (isLeft) {
+            parent.leftChild = subtree;
+        } else {
+            parent.rightChild = subtree;
+        }
+        updateMetrics(subtree, parent.depth + 1);
+        for (int k = path.length - 1; k >= 0; k--) {
+            BiNode cur = path[k];
+            BiNode left = cur.leftChild;
+            BiNode right = cur.rightChild;
+            cur.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+            cur.height = 1 + Math.max(left == null ? 0 : left.height, right == null ? 0 : right.height);
+        }
+        dispatchSubtreeReplaced(parentIndex, isLeft, index, oldSize);
+    }
+
+    /**
+     * 已知子节点的编号时求父节点的编号：左孩子紧跟父节点，右孩子之前还有左子树
+     */
+    private static int parentIndex(int index, BiNode parent, BiNode child) {
+        if (parent.leftChild == child) {
+            return index - 1;
+        }
+        return index - 1 - (parent.leftChild == null ? 0 : parent.leftChild.size);
+    }
+
+    /**
+     * 从根到先序编号为 index 的节点的路径
+     */
+    private BiNode[] path(int index) {
+        if (index < 0 || index >= getNodeCount()) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + getNodeCount());
+        }
+        BiNode[] path = new BiNode[root.height];
+        BiNode cur = root;
+        int k = 0;
+        while (true) {
+            path[k++] = cur;
+            if (index == 0) {
+                return Arrays.copyOf(path, k);
+            }
+            index--;
+            int leftSize = cur.leftChild == null ? 0 : cur.leftChild.size;
+            if (index < leftSize) {
+                cur = cur.leftChild;
+            } else {
+                index -= leftSize;
+                cur = cur.rightChild;
+            }
+        }
+    }
+
+    private void dispatchSubtreeReplaced(int parentIndex, boolean isLeft, int index, int oldSize) {
+        modCount++;
+        changeCount++;
+        //旧的链接还引用着被换下的子树
+        links = null;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onSubtreeReplaced(this, parentIndex, isLeft, index, oldSize);
+        }
+    }
+
+    private void dispatchLabelChanged(int index) {
+        changeCount++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onLabelChanged(this, index);
+        }
+    }
+
+    private static class AppendVisitor implements BiNodeVisitor {
+
+        private final StringBuilder builder;
+
+        AppendVisitor(StringBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void visit(BiNode biNode) {
+            builder.append(biNode.data);
+        }
+    }
+}
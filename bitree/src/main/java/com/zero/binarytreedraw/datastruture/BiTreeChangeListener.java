@@ -0,0 +1,24 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * BiTree 通过修改方法发生变化后的通知，在修改方法所在的线程回调，
+ * 回调时树的 depth / size / height 已经更新
+ * <p>
+ * 节点用先序编号表示；编号为修改后的编号，子树之后的节点编号整体移动了 newSize - oldSize。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public interface BiTreeChangeListener {
+
+    /**
+     * 节点 parentIndex 的左（isLeft）或右子树被替换，parentIndex 为 -1 时替换的是整棵树
+     *
+     * @param index   替换后子树根的先序编号，子树被删除时为它原来的位置
+     * @param oldSize 原子树的节点数，原来为空时为 0
+     */
+    void onSubtreeReplaced(BiTree biTree, int parentIndex, boolean isLeft, int index, int oldSize);
+
+    void onLabelChanged(BiTree biTree, int index);
+}
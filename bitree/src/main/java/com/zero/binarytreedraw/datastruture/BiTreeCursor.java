@@ -0,0 +1,294 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * 按某种遍历顺序前后移动的游标，由 {@link BiTree#cursor(int)} 创建
+ * <p>
+ * 前驱和后继只沿 {@link BiTreeLinks} 中的父节点编号和孩子走（层序沿 levelNext / levelPrev），不需要栈或队列；
+ * 节点按先序编号，先序的前后一步就是编号加减一。
+ * 其余顺序单步最坏是 O(树高)，但从头走到尾每条边只经过常数次，连续移动均摊 O(1)；
+ * {@link #seek(int)} 从当前位置、开头和结尾中最近的一处走过去，拖动进度时只走相差的步数。
+ * <p>
+ * 位置从 0 开始，-1 表示还没有移动到第一个节点。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeCursor {
+
+    public static final int PRE_ORDER = 1;
+    public static final int IN_ORDER = 2;
+    public static final int POST_ORDER = 3;
+    public static final int LEVEL_ORDER = 4;
+
+    private final BiTree tree;
+
+    private final BiTreeLinks links;
+
+    private final int order;
+
+    private final int expectedModCount;
+
+    private int index = -1;
+
+    private int position = -1;
+
+    BiTreeCursor(BiTree tree, BiTreeLinks links, int order) {
+        if (order < PRE_ORDER || order > LEVEL_ORDER) {
+            throw new IllegalArgumentException("unknown order: " + order);
+        }
+        this.tree = tree;
+        this.links = links;
+        this.order = order;
+        this.expectedModCount = tree.modCount;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public int size() {
+        return links.count;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * 当前位置的节点，还没有移动过时为 null
+     */
+    public BiNode current() {
+        return index < 0 ? null : links.nodes[index];
+    }
+
+    /**
+     * 当前节点的先序编号，与 {@link BiTree#getNode(int)} 和布局表的编号相同，还没有移动过时为 -1
+     */
+    public int currentIndex() {
+        return index;
+    }
+
+    public boolean hasNext() {
+        return position + 1 < links.count;
+    }
+
+    public boolean hasPrevious() {
+        return position > 0;
+    }
+
+    public BiNode next() {
+        checkForComodification();
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        index = position < 0 ? first() : successor(index);
+        position++;
+        return links.nodes[index];
+    }
+
+    public BiNode previous() {
+        checkForComodification();
+        if (!hasPrevious()) {
+            throw new NoSuchElementException();
+        }
+        index = predecessor(index);
+        position--;
+        return links.nodes[index];
+    }
+
+    /**
+     * 移动到第 position 个节点并返回它
+     */
+    public BiNode seek(int position) {
+        checkForComodification();
+        int size = links.count;
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+        int fromCurrent = this.position < 0 ? Integer.MAX_VALUE : Math.abs(position - this.position);
+        int fromLast = size - 1 - position;
+        if (position <= fromCurrent && position <= fromLast) {
+            index = first();
+            this.position = 0;
+        } else if (fromLast < fromCurrent) {
+            index = last();
+            this.position = size - 1;
+        }
+        while (this.position < position) {
+            index = successor(index);
+            this.position++;
+        }
+        while (this.position > position) {
+            index = predecessor(index);
+            this.position--;
+        }
+        return links.nodes[index];
+    }
+
+    /**
+     * 回到第一个节点之前
+     */
+    public void reset() {
+        index = -1;
+        position = -1;
+    }
+
+    private void checkForComodification() {
+        if (tree.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private int first() {
+        switch (order) {
+            case IN_ORDER:
+                return leftmost(0);
+            case POST_ORDER:
+                return firstPostOrder(0);
+            default:
+                return 0;
+        }
+    }
+
+    private int last() {
+        switch (order) {
+            case PRE_ORDER:
+                return links.count - 1;
+            case IN_ORDER:
+                return rightmost(0);
+            case POST_ORDER:
+                return 0;
+            default:
+                return links.levelLast;
+        }
+    }
+
+    private int successor(int i) {
+        switch (order) {
+            case PRE_ORDER:
+                return i + 1;
+            case IN_ORDER:
+                return inOrderSuccessor(i);
+            case POST_ORDER:
+                return postOrderSuccessor(i);
+            default:
+                return links.levelNext[i];
+        }
+    }
+
+    private int predecessor(int i) {
+        switch (order) {
+            case PRE_ORDER:
+                return i - 1;
+            case IN_ORDER:
+                return inOrderPredecessor(i);
+            case POST_ORDER:
+                return postOrderPredecessor(i);
+            default:
+                return links.levelPrev[i];
+        }
+    }
+
+    private int inOrderSuccessor(int i) {
+        BiTreeLinks links = this.links;
+        int r = links.right(i);
+        if (r >= 0) {
+            return leftmost(r);
+        }
+        int p = links.parent[i];
+        while (p >= 0 && links.right(p) == i) {
+            i = p;
+            p = links.parent[i];
+        }
+        return p;
+    }
+
+    private int inOrderPredecessor(int i) {
+        BiTreeLinks links = this.links;
+        int l = links.left(i);
+        if (l >= 0) {
+            return rightmost(l);
+        }
+        int p = links.parent[i];
+        while (p >= 0 && links.left(p) == i) {
+            i = p;
+            p = links.parent[i];
+        }
+        return p;
+    }
+
+    /**
+     * 右孩子或没有右兄弟的左孩子，下一个就是父节点；否则是右兄弟子树中后序的第一个节点
+     */
+    private int postOrderSuccessor(int i) {
+        int p = links.parent[i];
+        if (p < 0) {
+            return -1;
+        }
+        int r = links.right(p);
+        if (r == i || r < 0) {
+            return p;
+        }
+        return firstPostOrder(r);
+    }
+
+    /**
+     * 与先序的后继对称：先右孩子、再左孩子，都没有时向上找到第一个作为右孩子、且有左兄弟的祖先
+     */
+    private int postOrderPredecessor(int i) {
+        BiTreeLinks links = this.links;
+        int r = links.right(i);
+        if (r >= 0) {
+            return r;
+        }
+        int l = links.left(i);
+        if (l >= 0) {
+            return l;
+        }
+        int p = links.parent[i];
+        while (p >= 0) {
+            l = links.left(p);
+            if (links.right(p) == i && l >= 0) {
+                return l;
+            }
+            i = p;
+            p = links.parent[i];
+        }
+        return -1;
+    }
+
+    private int leftmost(int i) {
+        int l;
+        while ((l = links.left(i)) >= 0) {
+            i = l;
+        }
+        return i;
+    }
+
+    private int rightmost(int i) {
+        int r;
+        while ((r = links.right(i)) >= 0) {
+            i = r;
+        }
+        return i;
+    }
+
+    private int firstPostOrder(int i) {
+        while (true) {
+            int l = links.left(i);
+            if (l >= 0) {
+                i = l;
+                continue;
+            }
+            int r = links.right(i);
+            if (r < 0) {
+                return i;
+            }
+            i = r;
+        }
+    }
+}
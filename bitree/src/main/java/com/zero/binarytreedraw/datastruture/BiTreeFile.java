@@ -0,0 +1,187 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 二叉树的二进制文件格式，打开时用 FileChannel.map 映射，不做整体解码
+ * <p>
+ * 文件布局（小端）：
+ * <pre>
+ * header     magic, version, nodeCount, height, labelCount, nodesOffset, dictionaryOffset, labelBytes
+ * nodes      left[n], right[n], label[n], depth[n], size[n]，与 {@link CompactBiTree} 的列一致
+ * dictionary offsets[labelCount + 1]，之后是 UTF-8 编码的标签
+ * </pre>
+ * 节点列直接作为 CompactBiTree 的存储，只有被访问到的页才会读入内存；标签在第一次读取时解码。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public final class BiTreeFile {
+
+    public static final int MAGIC = 0x45525442; // "BTRE"
+
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int FIELD_COUNT = 5;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private BiTreeFile() {
+    }
+
+    public static void write(BiTree biTree, File file) throws IOException {
+        write(CompactBiTree.from(biTree, false), file);
+    }
+
+    public static void write(CompactBiTree biTree, File file) throws IOException {
+        int count = biTree.getNodeCount();
+        int labelCount = biTree.getLabelCount();
+
+        byte[][] labels = new byte[labelCount][];
+        int labelBytes = 0;
+        for (int i = 0; i < labelCount; i++) {
+            labels[i] = biTree.getLabelById(i).getBytes(UTF_8);
+            labelBytes += labels[i].length;
+        }
+
+        int nodesOffset = HEADER_SIZE;
+        int dictionaryOffset = nodesOffset + count * FIELD_COUNT * 4;
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(count)
+                    .putInt(biTree.height())
+                    .putInt(labelCount)
+                    .putInt(nodesOffset)
+                    .putInt(dictionaryOffset)
+                    .putInt(labelBytes);
+
+            for (IntBuffer column : biTree.columns()) {
+                for (int i = 0; i < count; i++) {
+                    ensureRemaining(channel, buffer, 4);
+                    buffer.putInt(column.get(i));
+                }
+            }
+
+            int offset = 0;
+            for (int i = 0; i <= labelCount; i++) {
+                ensureRemaining(channel, buffer, 4);
+                buffer.putInt(offset);
+                if (i < labelCount) {
+                    offset += labels[i].length;
+                }
+            }
+            for (byte[] label : labels) {
+                int written = 0;
+                while (written < label.length) {
+                    ensureRemaining(channel, buffer, 1);
+                    int n = Math.min(buffer.remaining(), label.length - written);
+                    buffer.put(label, written, n);
+                    written += n;
+                }
+            }
+
+            flush(channel, buffer);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 映射文件并返回以映射内存为存储的 CompactBiTree，文件关闭后映射依然有效
+     * <p>
+     * 打开时只检查文件头，不读节点列，耗时与节点数无关；节点和标签偏移在第一次访问时检查，
+     * 见 {@link CompactBiTree} 中对映射节点的核对，损坏时抛出 IllegalStateException
+     */
+    public static CompactBiTree open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        MappedByteBuffer mapped;
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a BiTree file: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a BiTree file: " + file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported BiTree file version " + mapped.getInt(4) + ": " + file);
+        }
+        int count = mapped.getInt(8);
+        int height = mapped.getInt(12);
+        int labelCount = mapped.getInt(16);
+        int nodesOffset = mapped.getInt(20);
+        int dictionaryOffset = mapped.getInt(24);
+        int labelBytes = mapped.getInt(28);
+
+        long expected = (long) dictionaryOffset + (labelCount + 1) * 4L + labelBytes;
+        //height 从 1 开始计，空树为 0
+        boolean heightValid = count == 0 ? height == 0 : height >= 1 && height <= count;
+        if (count < 0 || !heightValid || labelCount < 0 || labelBytes < 0 || nodesOffset < HEADER_SIZE
+                || mapped.capacity() < expected
+                || dictionaryOffset != nodesOffset + (long) count * FIELD_COUNT * 4) {
+            throw new IOException("Corrupt BiTree file: " + file);
+        }
+
+        IntBuffer[] columns = new IntBuffer[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            columns[i] = CompactBiTree.slice(mapped, nodesOffset + i * count * 4, count).asIntBuffer();
+        }
+        IntBuffer offsets = CompactBiTree.slice(mapped, dictionaryOffset, labelCount + 1).asIntBuffer();
+        ByteBuffer data = mapped.duplicate();
+        data.position(dictionaryOffset + (labelCount + 1) * 4);
+        data = data.slice();
+
+        return new CompactBiTree(count, height, columns, new String[labelCount], data, offsets);
+    }
+
+    static String decodeLabel(ByteBuffer data, IntBuffer offsets, int id) {
+        int start = offsets.get(id);
+        int end = offsets.get(id + 1);
+        if (start < 0 || start > end || end > data.limit()) {
+            throw new IllegalStateException("Corrupt BiTree label " + id);
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(start + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.zero.binarytreedraw.datastruture;
+
+/**
+ * 游标用的父节点和层序链接，放在树之外，节点按先序编号，与 {@link BiTree#getNode(int)} 的编号相同
+ * <p>
+ * BiNode 本身不多占空间，只有用到游标的树才付出每节点几个 int 的代价；
+ * 左孩子紧跟父节点，右孩子之前隔着左子树，按子树大小即可求出，不再单独保存。
+ * 树被修改后整体丢弃，被换下的子树不会因为链接而继续被引用。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+final class BiTreeLinks {
+
+    final int count;
+
+    final BiNode[] nodes;
+
+    /**
+     * 父节点的编号，根节点为 -1
+     */
+    final int[] parent;
+
+    /**
+     * 层序中的下一个和上一个节点，没有时为 -1
+     */
+    final int[] levelNext;
+
+    final int[] levelPrev;
+
+    /**
+     * 层序的最后一个节点，树为空时为 -1
+     */
+    final int levelLast;
+
+    private BiTreeLinks(BiNode root) {
+        count = root == null ? 0 : root.size;
+        nodes = new BiNode[count];
+        parent = new int[count];
+        levelNext = new int[count];
+        levelPrev = new int[count];
+        fill(root);
+        levelLast = linkLevel();
+    }
+
+    /**
+     * O(n) 建立链接，依赖节点上的 size / height，直接修改过孩子时先调用 {@link BiTree#updateMetrics()}
+     */
+    static BiTreeLinks build(BiNode root) {
+        return new BiTreeLinks(root);
+    }
+
+    int left(int i) {
+        return nodes[i].leftChild == null ? -1 : i + 1;
+    }
+
+    int right(int i) {
+        BiNode biNode = nodes[i];
+        if (biNode.rightChild == null) {
+            return -1;
+        }
+        return i + 1 + (biNode.leftChild == null ? 0 : biNode.leftChild.size);
+    }
+
+    /**
+     * 用显式栈先序展开，得到每个编号的节点和父节点
+     */
+    private void fill(BiNode root) {
+        if (root == null) {
+            return;
+        }
+        BiNode[] stack = new BiNode[root.height + 1];
+        int[] parentStack = new int[root.height + 1];
+        int top = 0;
+        stack[top] = root;
+        parentStack[top] = -1;
+        top++;
+        int next = 0;
+        while (top > 0) {
+            top--;
+            BiNode biNode = stack[top];
+            int i = next++;
+            nodes[i] = biNode;
+            parent[i] = parentStack[top];
+            if (biNode.rightChild != null) {
+                stack[top] = biNode.rightChild;
+                parentStack[top] = i;
+                top++;
+            }
+            if (biNode.leftChild != null) {
+                stack[top] = biNode.leftChild;
+                parentStack[top] = i;
+                top++;
+            }
+        }
+    }
+
+    /**
+     * 按编号做一次 BFS，把出队顺序接成前后链接，返回最后一个节点
+     */
+    private int linkLevel() {
+        if (count == 0) {
+            return -1;
+        }
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        int last = -1;
+        while (head < tail) {
+            int cur = queue[head++];
+            levelPrev[cur] = last;
+            levelNext[cur] = -1;
+            if (last >= 0) {
+                levelNext[last] = cur;
+            }
+            last = cur;
+            int l = left(cur);
+            int r = right(cur);
+            if (l >= 0) {
+                queue[tail++] = l;
+            }
+            if (r >= 0) {
+                queue[tail++] = r;
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,521 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 大树上的并行计算：按左右子树拆成 fork/join 任务，子树小于阈值时退回顺序的非递归实现
+ * <p>
+ * 汇总和序列化按节点上缓存的 size 判断子树大小，树必须是通过 {@link BiTree} 建立或修改的，
+ * 直接改过孩子时先调用 {@link #updateMetrics}。updateMetrics 本身不能相信旧的 size，
+ * 改为按深度拆分：前几层各自 fork，之后整棵子树交给 {@link BiTree#updateMetrics} 的顺序实现。
+ * <p>
+ * 只有左右子树都不小于阈值时才 fork，否则小的一侧直接顺序计算，沿大的一侧循环向下，
+ * 单链或毛毛虫形状的树不会让任务嵌套得很深。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public final class BiTreeParallel {
+
+    public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+    public static final int PRE_ORDER = 1;
+    public static final int IN_ORDER = 2;
+    public static final int POST_ORDER = 3;
+
+    /**
+     * '#' 表示空节点的先序序列，可以由 {@link BiTreeParser} 解析回来
+     */
+    public static final int SERIALIZED = 4;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * updateMetrics 拆分的层数，任务数约为并行度的 8 倍，便于窃取时均衡
+     */
+    private final int forkDepth;
+
+    public BiTreeParallel(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    public BiTreeParallel(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+        this.forkDepth = 32 - Integer.numberOfLeadingZeros(pool.getParallelism()) + 3;
+    }
+
+    /**
+     * 重新计算整棵树的 depth / size / height，之后 {@link BiTree#height()} 和
+     * {@link BiTree#getNodeCount()} 即为结果；与 {@link BiTree#updateMetrics()} 一样使游标和链接失效
+     */
+    public void updateMetrics(BiTree biTree) {
+        BiNode root = biTree.getRoot();
+        if (root != null) {
+            pool.invoke(new MetricsTask(root, 1, forkDepth));
+        }
+        biTree.metricsUpdated();
+    }
+
+    public <T> T aggregate(BiTree biTree, BiNodeAggregator<T> aggregator) {
+        BiNode root = biTree.getRoot();
+        if (root == null || root.size < threshold) {
+            return aggregate(root, aggregator);
+        }
+        return pool.invoke(new AggregateTask<>(root, aggregator));
+    }
+
+    public String getPreOrderTraversal(BiTree biTree) {
+        return traverse(biTree, PRE_ORDER);
+    }
+
+    public String getInOrderTraversal(BiTree biTree) {
+        return traverse(biTree, IN_ORDER);
+    }
+
+    public String getPostOrderTraversal(BiTree biTree) {
+        return traverse(biTree, POST_ORDER);
+    }
+
+    public String serialize(BiTree biTree) {
+        return traverse(biTree, SERIALIZED);
+    }
+
+    /**
+     * 先并行统计每个拆分出的子树输出多少字符，得到各自的起始位置，
+     * 再并行写入同一个数组，每个字符只复制一次
+     */
+    public String traverse(BiTree biTree, int order) {
+        if (order < PRE_ORDER || order > SERIALIZED) {
+            throw new IllegalArgumentException("unknown order: " + order);
+        }
+        BiNode root = biTree.getRoot();
+        Span span;
+        if (root == null || root.size < threshold) {
+            span = new Span(root);
+            span.length = length(root, order);
+        } else {
+            span = pool.invoke(new MeasureTask(root, order));
+        }
+        char[] out = new char[span.length];
+        if (span.split) {
+            pool.invoke(new WriteTask(span, out, 0, order));
+        } else {
+            write(root, out, 0, order);
+        }
+        return new String(out);
+    }
+
+    private final class MetricsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiNode biNode;
+
+        private final int depth;
+
+        private final int budget;
+
+        MetricsTask(BiNode biNode, int depth, int budget) {
+            this.biNode = biNode;
+            this.depth = depth;
+            this.budget = budget;
+        }
+
+        @Override
+        protected void compute() {
+            if (budget == 0) {
+                BiTree.updateMetrics(biNode, depth);
+                return;
+            }
+            biNode.depth = depth;
+            BiNode l = biNode.leftChild;
+            BiNode r = biNode.rightChild;
+            if (l != null && r != null) {
+                invokeAll(new MetricsTask(l, depth + 1, budget - 1), new MetricsTask(r, depth + 1, budget - 1));
+            } else if (l != null || r != null) {
+                //单链上没有可以并行的部分，同样消耗预算，避免退化成很深的递归
+                new MetricsTask(l != null ? l : r, depth + 1, budget - 1).compute();
+            }
+            int leftSize = l == null ? 0 : l.size;
+            int rightSize = r == null ? 0 : r.size;
+            int leftHeight = l == null ? 0 : l.height;
+            int rightHeight = r == null ? 0 : r.height;
+            biNode.size = leftSize + rightSize + 1;
+            biNode.height = Math.max(leftHeight, rightHeight) + 1;
+        }
+    }
+
+    private final class AggregateTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiNode biNode;
+
+        private final BiNodeAggregator<T> aggregator;
+
+        AggregateTask(BiNode biNode, BiNodeAggregator<T> aggregator) {
+            this.biNode = biNode;
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        protected T compute() {
+            //沿大的一侧向下时经过的节点和小的一侧的值，回来时倒序合并
+            ArrayList<BiNode> path = new ArrayList<>();
+            ArrayList<T> small = new ArrayList<>();
+            BiNode cur = biNode;
+            while (cur != null && cur.size >= threshold && !splits(cur)) {
+                boolean leftBig = leftBig(cur);
+                path.add(cur);
+                small.add(aggregate(leftBig ? cur.rightChild : cur.leftChild, aggregator));
+                cur = leftBig ? cur.leftChild : cur.rightChild;
+            }
+
+            T value;
+            if (cur == null || cur.size < threshold) {
+                value = aggregate(cur, aggregator);
+            } else {
+                AggregateTask<T> l = new AggregateTask<>(cur.leftChild, aggregator);
+                AggregateTask<T> r = new AggregateTask<>(cur.rightChild, aggregator);
+                invokeAll(l, r);
+                value = aggregator.combine(cur, l.join(), r.join());
+            }
+            for (int k = path.size() - 1; k >= 0; k--) {
+                BiNode node = path.get(k);
+                BiNode big = k + 1 < path.size() ? path.get(k + 1) : cur;
+                if (big != null && node.leftChild == big) {
+                    value = aggregator.combine(node, value, small.get(k));
+                } else {
+                    value = aggregator.combine(node, small.get(k), value);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 一次拆分的结果：split 为 false 时整棵子树顺序输出
+     */
+    private static final class Span {
+
+        final BiNode biNode;
+
+        int length;
+
+        boolean split;
+
+        Span left;
+
+        Span right;
+
+        Span(BiNode biNode) {
+            this.biNode = biNode;
+        }
+    }
+
+    private final class MeasureTask extends RecursiveTask<Span> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiNode biNode;
+
+        private final int order;
+
+        MeasureTask(BiNode biNode, int order) {
+            this.biNode = biNode;
+            this.order = order;
+        }
+
+        @Override
+        protected Span compute() {
+            ArrayList<Span> path = new ArrayList<>();
+            BiNode cur = biNode;
+            while (cur != null && cur.size >= threshold && !splits(cur)) {
+                boolean leftBig = leftBig(cur);
+                BiNode smallChild = leftBig ? cur.rightChild : cur.leftChild;
+                Span small = new Span(smallChild);
+                small.length = length(smallChild, order);
+                Span span = new Span(cur);
+                span.split = true;
+                if (leftBig) {
+                    span.right = small;
+                } else {
+                    span.left = small;
+                }
+                path.add(span);
+                cur = leftBig ? cur.leftChild : cur.rightChild;
+            }
+
+            Span bottom = new Span(cur);
+            if (cur == null || cur.size < threshold) {
+                bottom.length = length(cur, order);
+            } else {
+                MeasureTask l = new MeasureTask(cur.leftChild, order);
+                MeasureTask r = new MeasureTask(cur.rightChild, order);
+                invokeAll(l, r);
+                bottom.split = true;
+                bottom.left = l.join();
+                bottom.right = r.join();
+                bottom.length = label(cur).length() + bottom.left.length + bottom.right.length;
+            }
+            for (int k = path.size() - 1; k >= 0; k--) {
+                Span span = path.get(k);
+                if (span.left == null) {
+                    span.left = bottom;
+                } else {
+                    span.right = bottom;
+                }
+                span.length = label(span.biNode).length() + span.left.length + span.right.length;
+                bottom = span;
+            }
+            return bottom;
+        }
+    }
+
+    private static final class WriteTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Span span;
+
+        private final char[] out;
+
+        private final int offset;
+
+        private final int order;
+
+        WriteTask(Span span, char[] out, int offset, int order) {
+            this.span = span;
+            this.out = out;
+            this.offset = offset;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            Span cur = span;
+            int off = offset;
+            while (cur.split) {
+                String label = label(cur.biNode);
+                int leftOffset;
+                int rightOffset;
+                int labelOffset;
+                if (order == IN_ORDER) {
+                    leftOffset = off;
+                    labelOffset = off + cur.left.length;
+                    rightOffset = labelOffset + label.length();
+                } else if (order == POST_ORDER) {
+                    leftOffset = off;
+                    rightOffset = off + cur.left.length;
+                    labelOffset = rightOffset + cur.right.length;
+                } else {
+                    labelOffset = off;
+                    leftOffset = off + label.length();
+                    rightOffset = leftOffset + cur.left.length;
+                }
+                label.getChars(0, label.length(), out, labelOffset);
+                if (cur.left.split && cur.right.split) {
+                    invokeAll(new WriteTask(cur.left, out, leftOffset, order),
+                            new WriteTask(cur.right, out, rightOffset, order));
+                    return;
+                }
+                //不再拆分的一侧直接顺序写出，沿另一侧继续
+                if (cur.left.split) {
+                    write(cur.right.biNode, out, rightOffset, order);
+                    cur = cur.left;
+                    off = leftOffset;
+                } else {
+                    write(cur.left.biNode, out, leftOffset, order);
+                    cur = cur.right;
+                    off = rightOffset;
+                }
+            }
+            write(cur.biNode, out, off, order);
+        }
+    }
+
+    private boolean splits(BiNode biNode) {
+        return biNode.leftChild != null && biNode.rightChild != null
+                && biNode.leftChild.size >= threshold && biNode.rightChild.size >= threshold;
+    }
+
+    private static boolean leftBig(BiNode biNode) {
+        return biNode.leftChild != null
+                && (biNode.rightChild == null || biNode.leftChild.size >= biNode.rightChild.size);
+    }
+
+    /**
+     * 顺序汇总：非递归后序遍历，子树的值按左、右的顺序压栈，回到节点时弹出合并
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T aggregate(BiNode root, BiNodeAggregator<T> aggregator) {
+        if (root == null) {
+            return aggregator.empty();
+        }
+        BiNode[] stack = new BiNode[16];
+        Object[] values = new Object[16];
+        int top = 0;
+        int valueTop = 0;
+        stack[top++] = root;
+
+        BiNode last = null;
+        while (top > 0) {
+            BiNode cur = stack[top - 1];
+            BiNode next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+
+            if (next != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = next;
+            } else {
+                T right = cur.rightChild == null ? aggregator.empty() : (T) values[--valueTop];
+                T left = cur.leftChild == null ? aggregator.empty() : (T) values[--valueTop];
+                if (valueTop == values.length) {
+                    values = Arrays.copyOf(values, valueTop * 2);
+                }
+                values[valueTop++] = aggregator.combine(cur, left, right);
+                top--;
+            }
+            last = cur;
+        }
+        return (T) values[0];
+    }
+
+    /**
+     * 子树输出的字符数，空节点只在 SERIALIZED 中占一个字符
+     */
+    private static int length(BiNode root, int order) {
+        int nullLength = order == SERIALIZED ? 1 : 0;
+        if (root == null) {
+            return nullLength;
+        }
+        BiNode[] stack = new BiNode[16];
+        int top = 0;
+        int length = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            BiNode biNode = stack[--top];
+            length += label(biNode).length();
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (biNode.rightChild != null) {
+                stack[top++] = biNode.rightChild;
+            } else {
+                length += nullLength;
+            }
+            if (biNode.leftChild != null) {
+                stack[top++] = biNode.leftChild;
+            } else {
+                length += nullLength;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 从 offset 开始顺序写出子树，遍历方式与 {@link BiTree} 中的非递归遍历相同
+     */
+    private static void write(BiNode root, char[] out, int offset, int order) {
+        BiNode[] stack = new BiNode[16];
+        int top = 0;
+        int pos = offset;
+        if (order == SERIALIZED) {
+            //空孩子也压栈，出栈时写出 '#'
+            stack[top++] = root;
+            while (top > 0) {
+                BiNode biNode = stack[--top];
+                if (biNode == null) {
+                    out[pos++] = BiTreeParser.NULL_MARKER;
+                    continue;
+                }
+                pos = put(label(biNode), out, pos);
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = biNode.rightChild;
+                stack[top++] = biNode.leftChild;
+            }
+        } else if (root == null) {
+            return;
+        } else if (order == PRE_ORDER) {
+            stack[top++] = root;
+            while (top > 0) {
+                BiNode biNode = stack[--top];
+                pos = put(label(biNode), out, pos);
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                if (biNode.rightChild != null) {
+                    stack[top++] = biNode.rightChild;
+                }
+                if (biNode.leftChild != null) {
+                    stack[top++] = biNode.leftChild;
+                }
+            }
+        } else if (order == IN_ORDER) {
+            BiNode cur = root;
+            while (cur != null || top > 0) {
+                while (cur != null) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = cur;
+                    cur = cur.leftChild;
+                }
+                cur = stack[--top];
+                pos = put(label(cur), out, pos);
+                cur = cur.rightChild;
+            }
+        } else {
+            stack[top++] = root;
+            BiNode last = null;
+            while (top > 0) {
+                BiNode cur = stack[top - 1];
+                BiNode next = null;
+                if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                    next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+                } else if (last == cur.leftChild) {
+                    next = cur.rightChild;
+                }
+
+                if (next != null) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = next;
+                } else {
+                    pos = put(label(cur), out, pos);
+                    top--;
+                }
+                last = cur;
+            }
+        }
+    }
+
+    private static int put(String s, char[] out, int pos) {
+        s.getChars(0, s.length(), out, pos);
+        return pos + s.length();
+    }
+
+    /**
+     * 与 StringBuilder.append 一致，没有数据的节点输出 "null"
+     */
+    private static String label(BiNode biNode) {
+        return String.valueOf(biNode.data);
+    }
+}
@@ -0,0 +1,206 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 解析 '#' 表示空节点的先序序列，例如 "ABD#G##E##C#FH##I##"
+ * <p>
+ * 用显式栈代替递归，只为真实节点创建 BiNode，解析时顺便填好 depth / size / height。
+ * 每次解析使用独立的状态，可以在多个线程中同时调用。
+ * 输入提前结束时，缺少的部分按空节点处理。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public final class BiTreeParser {
+
+    public static final char NULL_MARKER = '#';
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 单字符标签共用同一个 String，避免每个节点都创建一次
+     */
+    private static final String[] ASCII_LABELS = new String[128];
+
+    static {
+        for (int i = 0; i < ASCII_LABELS.length; i++) {
+            ASCII_LABELS[i] = String.valueOf((char) i).intern();
+        }
+    }
+
+    private BiTreeParser() {
+    }
+
+    public static BiNode parse(CharSequence src) {
+        return feed(src, new NodeBuilder()).root;
+    }
+
+    public static BiNode parse(String[] elems) {
+        return feed(elems, new NodeBuilder()).root;
+    }
+
+    public static BiNode parse(Reader reader) throws IOException {
+        return feed(reader, new NodeBuilder()).root;
+    }
+
+    /**
+     * 每个字节是一个 ASCII / Latin-1 标签，从 buffer 当前 position 开始读取
+     */
+    public static BiNode parse(ByteBuffer buffer) {
+        return feed(buffer, new NodeBuilder()).root;
+    }
+
+    static <S extends Sink> S feed(CharSequence src, S sink) {
+        int length = src.length();
+        for (int i = 0; i < length && !sink.done; i++) {
+            sink.accept(src.charAt(i));
+        }
+        sink.finish();
+        return sink;
+    }
+
+    static <S extends Sink> S feed(String[] elems, S sink) {
+        for (int i = 0; i < elems.length && !sink.done; i++) {
+            String elem = elems[i];
+            sink.accept(elem == null || elem.equals("#") ? null : elem);
+        }
+        sink.finish();
+        return sink;
+    }
+
+    static <S extends Sink> S feed(Reader reader, S sink) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while (!sink.done && (read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read && !sink.done; i++) {
+                sink.accept(buffer[i]);
+            }
+        }
+        sink.finish();
+        return sink;
+    }
+
+    static <S extends Sink> S feed(ByteBuffer buffer, S sink) {
+        while (!sink.done && buffer.hasRemaining()) {
+            sink.accept((char) (buffer.get() & 0xFF));
+        }
+        sink.finish();
+        return sink;
+    }
+
+    /**
+     * 按先序依次接收标签，由实现决定节点的存储方式
+     */
+    abstract static class Sink {
+
+        static final byte EXPECT_LEFT = 0;
+        static final byte EXPECT_RIGHT = 1;
+        static final byte RIGHT_ATTACHED = 2;
+
+        boolean done;
+
+        void accept(char c) {
+            if (c == NULL_MARKER) {
+                accept(null);
+            } else {
+                accept(c < ASCII_LABELS.length ? ASCII_LABELS[c] : String.valueOf(c));
+            }
+        }
+
+        /**
+         * @param label 为 null 时表示空节点
+         */
+        abstract void accept(String label);
+
+        void finish() {
+            while (!done) {
+                accept(null);
+            }
+        }
+    }
+
+    private static final class NodeBuilder extends Sink {
+
+        private BiNode root;
+
+        private boolean started;
+
+        private BiNode[] stack = new BiNode[16];
+
+        private byte[] states = new byte[16];
+
+        private int top;
+
+        @Override
+        void accept(String label) {
+            BiNode biNode = null;
+            if (label != null) {
+                biNode = new BiNode();
+                biNode.data = label;
+                biNode.depth = top + 1;
+            }
+
+            if (!started) {
+                started = true;
+                root = biNode;
+                if (biNode == null) {
+                    done = true;
+                } else {
+                    push(biNode);
+                }
+                return;
+            }
+
+            int parentIndex = top - 1;
+            BiNode parent = stack[parentIndex];
+            if (states[parentIndex] == EXPECT_LEFT) {
+                parent.leftChild = biNode;
+                states[parentIndex] = EXPECT_RIGHT;
+            } else {
+                parent.rightChild = biNode;
+                states[parentIndex] = RIGHT_ATTACHED;
+            }
+
+            if (biNode != null) {
+                push(biNode);
+            } else {
+                completePending();
+            }
+        }
+
+        /**
+         * 右孩子已经接上的节点，在右子树完成后依次出栈并汇总 size / height
+         */
+        private void completePending() {
+            while (top > 0 && states[top - 1] == RIGHT_ATTACHED) {
+                complete(stack[--top]);
+                stack[top] = null;
+            }
+            if (top == 0) {
+                done = true;
+            }
+        }
+
+        private void push(BiNode biNode) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                states = Arrays.copyOf(states, top * 2);
+            }
+            stack[top] = biNode;
+            states[top] = EXPECT_LEFT;
+            top++;
+        }
+
+        private static void complete(BiNode biNode) {
+            BiNode left = biNode.leftChild;
+            BiNode right = biNode.rightChild;
+            biNode.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+            biNode.height = 1 + Math.max(left == null ? 0 : left.height, right == null ? 0 : right.height);
+        }
+    }
+}
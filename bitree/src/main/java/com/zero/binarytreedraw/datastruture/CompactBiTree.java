@@ -0,0 +1,482 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑存储的二叉树：节点按先序编号，孩子编号、标签编号、层和子树大小分别放在 int 数组里，
+ * 标签去重后放在字典中。可以选择放在堆外的 direct ByteBuffer 中。
+ * <p>
+ * 根节点编号为 0，没有孩子时编号为 {@link #NO_NODE}。以 i 为根的子树占据编号 [i, i + size)。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class CompactBiTree {
+
+    public static final int NO_NODE = -1;
+
+    private static final int FIELD_COUNT = 5;
+
+    private final int count;
+
+    private final int height;
+
+    private final IntBuffer left;
+
+    private final IntBuffer right;
+
+    private final IntBuffer label;
+
+    private final IntBuffer depth;
+
+    private final IntBuffer size;
+
+    private String[] dictionary;
+
+    /**
+     * 从文件打开时标签按需解码，见 {@link BiTreeFile}
+     */
+    private final ByteBuffer dictionaryData;
+
+    private final IntBuffer dictionaryOffsets;
+
+    /**
+     * 解析或转换得到的树结构可信；从文件映射的列没有整体检查过，读取一个节点的孩子时才核对这个节点，见 {@link #verify(int)}
+     */
+    private final boolean trusted;
+
+    CompactBiTree(int count, int height, IntBuffer[] columns, String[] dictionary,
+                  ByteBuffer dictionaryData, IntBuffer dictionaryOffsets) {
+        this.count = count;
+        this.height = height;
+        this.left = columns[0];
+        this.right = columns[1];
+        this.label = columns[2];
+        this.depth = columns[3];
+        this.size = columns[4];
+        this.dictionary = dictionary;
+        this.dictionaryData = dictionaryData;
+        this.dictionaryOffsets = dictionaryOffsets;
+        this.trusted = dictionaryData == null;
+    }
+
+    private CompactBiTree(int count, int height, String[] dictionary, boolean direct) {
+        this(count, height, allocate(count, direct), dictionary, null, null);
+    }
+
+    private static IntBuffer[] allocate(int count, boolean direct) {
+        IntBuffer[] columns = new IntBuffer[FIELD_COUNT];
+        if (direct) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(count * FIELD_COUNT * 4).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                columns[i] = slice(buffer, i * count * 4, count).asIntBuffer();
+            }
+        } else {
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                columns[i] = IntBuffer.allocate(count);
+            }
+        }
+        return columns;
+    }
+
+    static ByteBuffer slice(ByteBuffer buffer, int offset, int intCount) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.limit(offset + intCount * 4);
+        return dup.slice().order(buffer.order());
+    }
+
+    public static CompactBiTree parse(CharSequence src, boolean direct) {
+        return BiTreeParser.feed(src, new Builder()).build(direct);
+    }
+
+    public static CompactBiTree parse(Reader reader, boolean direct) throws IOException {
+        return BiTreeParser.feed(reader, new Builder()).build(direct);
+    }
+
+    public static CompactBiTree parse(ByteBuffer buffer, boolean direct) {
+        return BiTreeParser.feed(buffer, new Builder()).build(direct);
+    }
+
+    /**
+     * 由 BiTree 转换，依赖 BiNode 上已经算好的 depth / size
+     */
+    public static CompactBiTree from(BiTree biTree, boolean direct) {
+        BiNode root = biTree.getRoot();
+        int count = biTree.getNodeCount();
+        final Map<String, Integer> ids = new HashMap<>();
+        final int[] labelIds = new int[count];
+        final CompactBiTree tree = new CompactBiTree(count, biTree.height(), new String[0], direct);
+        if (root == null) {
+            return tree;
+        }
+
+        biTree.preOrder(new BiNodeVisitor() {
+            int index;
+
+            @Override
+            public void visit(BiNode biNode) {
+                int i = index++;
+                labelIds[i] = idOf(ids, biNode.data);
+                tree.left.put(i, biNode.leftChild == null ? NO_NODE : i + 1);
+                tree.right.put(i, biNode.rightChild == null ? NO_NODE
+                        : i + 1 + (biNode.leftChild == null ? 0 : biNode.leftChild.size));
+                tree.depth.put(i, biNode.depth);
+                tree.size.put(i, biNode.size);
+            }
+        });
+        tree.label.put(labelIds);
+        tree.dictionary = dictionaryOf(ids);
+        return tree;
+    }
+
+    private static int idOf(Map<String, Integer> ids, String data) {
+        Integer id = ids.get(data);
+        if (id == null) {
+            id = ids.size();
+            ids.put(data, id);
+        }
+        return id;
+    }
+
+    private static String[] dictionaryOf(Map<String, Integer> ids) {
+        String[] dictionary = new String[ids.size()];
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            dictionary[entry.getValue()] = entry.getKey();
+        }
+        return dictionary;
+    }
+
+    public boolean isDirect() {
+        return left.isDirect();
+    }
+
+    public int getRoot() {
+        return count == 0 ? NO_NODE : 0;
+    }
+
+    public int getNodeCount() {
+        return count;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int getLeftChild(int index) {
+        verify(index);
+        return left.get(index);
+    }
+
+    public int getRightChild(int index) {
+        verify(index);
+        return right.get(index);
+    }
+
+    public String getLabel(int index) {
+        return getLabelById(getLabelId(index));
+    }
+
+    public String getLabelById(int id) {
+        if (id < 0 || id >= dictionary.length) {
+            throw new IndexOutOfBoundsException("label id " + id + ", label count " + dictionary.length);
+        }
+        String data = dictionary[id];
+        if (data == null && dictionaryData != null) {
+            data = BiTreeFile.decodeLabel(dictionaryData, dictionaryOffsets, id);
+            dictionary[id] = data;
+        }
+        return data;
+    }
+
+    /**
+     * 按列取出存储，写文件时使用
+     */
+    IntBuffer[] columns() {
+        return new IntBuffer[]{left, right, label, depth, size};
+    }
+
+    public int getLabelId(int index) {
+        verify(index);
+        return label.get(index);
+    }
+
+    public int getLabelCount() {
+        return dictionary.length;
+    }
+
+    public int getLevel(int index) {
+        verify(index);
+        return depth.get(index);
+    }
+
+    public int getSubtreeSize(int index) {
+        verify(index);
+        return size.get(index);
+    }
+
+    /**
+     * 核对一个节点与孩子之间的关系：左孩子紧跟自己，右孩子隔着左子树，子树大小是孩子之和加一且不超出末尾，
+     * 孩子的层比自己大一，标签编号在字典范围内。
+     * <p>
+     * 从根往下访问到的节点都满足时，每棵子树恰好占据 [i, i + size)，孩子不会越界、共用或成环，
+     * 层也不会超过 height，所以只检查实际访问到的节点就够了，打开文件时不必读入整个节点列。
+     *
+     * @throws IllegalStateException 文件中的节点列已损坏
+     */
+    private void verify(int index) {
+        if (trusted) {
+            return;
+        }
+        int s = size.get(index);
+        int d = depth.get(index);
+        int l = left.get(index);
+        int r = right.get(index);
+        int id = label.get(index);
+        boolean valid = s >= 1 && s <= count - index
+                && d >= 1 && d <= height && (index != 0 || d == 1)
+                && id >= 0 && id < dictionary.length;
+        int childSizes = 0;
+        if (valid && l != NO_NODE) {
+            valid = l == index + 1 && l < count && depth.get(l) == d + 1;
+            childSizes += valid ? size.get(l) : 0;
+        }
+        if (valid && r != NO_NODE) {
+            valid = r == index + 1 + childSizes && r < count && depth.get(r) == d + 1;
+            childSizes += valid ? size.get(r) : 0;
+        }
+        if (!valid || s != 1 + childSizes) {
+            throw new IllegalStateException("Corrupt BiTree node " + index);
+        }
+    }
+
+    public String getPreOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        preOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getInOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        inOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getPostOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        postOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    public String getLevelOrderTraversal() {
+        StringBuilder builder = new StringBuilder();
+        levelOrder(new AppendVisitor(builder));
+        return builder.toString();
+    }
+
+    /**
+     * 编号本身就是先序，顺序访问即可
+     */
+    public void preOrder(BiNodeIndexVisitor visitor) {
+        for (int i = 0; i < count; i++) {
+            visitor.visit(i);
+        }
+    }
+
+    /**
+     * 栈按 height 预分配，从文件打开的树 height 只是提示，不够时扩容
+     */
+    public void inOrder(BiNodeIndexVisitor visitor) {
+        int[] stack = new int[height + 1];
+        int top = 0;
+        int cur = getRoot();
+        while (cur != NO_NODE || top > 0) {
+            while (cur != NO_NODE) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = cur;
+                cur = getLeftChild(cur);
+            }
+            cur = stack[--top];
+            visitor.visit(cur);
+            cur = getRightChild(cur);
+        }
+    }
+
+    /**
+     * 先序编号下子树是连续区间，回溯时根据区间判断上一个访问的是左子树还是右子树
+     */
+    public void postOrder(BiNodeIndexVisitor visitor) {
+        if (count == 0) {
+            return;
+        }
+        int[] stack = new int[height + 1];
+        int top = 0;
+        stack[top++] = 0;
+
+        int last = NO_NODE;
+        while (top > 0) {
+            int cur = stack[top - 1];
+            int next = NO_NODE;
+            int l = getLeftChild(cur);
+            if (last == NO_NODE || last < cur) {
+                next = l != NO_NODE ? l : getRightChild(cur);
+            } else if (last == l) {
+                next = getRightChild(cur);
+            }
+
+            if (next != NO_NODE) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = next;
+            } else {
+                visitor.visit(cur);
+                top--;
+            }
+            last = cur;
+        }
+    }
+
+    public void levelOrder(BiNodeIndexVisitor visitor) {
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        if (count > 0) {
+            queue[tail++] = 0;
+        }
+        while (head < tail) {
+            int cur = queue[head++];
+            visitor.visit(cur);
+
+            int l = getLeftChild(cur);
+            int r = getRightChild(cur);
+            if (l != NO_NODE) {
+                queue[tail++] = l;
+            }
+            if (r != NO_NODE) {
+                queue[tail++] = r;
+            }
+        }
+    }
+
+    private class AppendVisitor implements BiNodeIndexVisitor {
+
+        private final StringBuilder builder;
+
+        AppendVisitor(StringBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void visit(int index) {
+            builder.append(getLabel(index));
+        }
+    }
+
+    private static final class Builder extends BiTreeParser.Sink {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        private int count;
+
+        private int height;
+
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int[] label = new int[16];
+        private int[] depth = new int[16];
+        private int[] size = new int[16];
+
+        private boolean started;
+
+        private int[] stack = new int[16];
+
+        private byte[] states = new byte[16];
+
+        private int top;
+
+        @Override
+        void accept(String data) {
+            int i = NO_NODE;
+            if (data != null) {
+                i = count++;
+                if (i == left.length) {
+                    int newLength = i * 2;
+                    left = Arrays.copyOf(left, newLength);
+                    right = Arrays.copyOf(right, newLength);
+                    label = Arrays.copyOf(label, newLength);
+                    depth = Arrays.copyOf(depth, newLength);
+                    size = Arrays.copyOf(size, newLength);
+                }
+                left[i] = NO_NODE;
+                right[i] = NO_NODE;
+                label[i] = idOf(ids, data);
+                depth[i] = top + 1;
+                height = Math.max(height, top + 1);
+            }
+
+            if (!started) {
+                started = true;
+                if (i == NO_NODE) {
+                    done = true;
+                } else {
+                    push(i);
+                }
+                return;
+            }
+
+            int parentIndex = top - 1;
+            int parent = stack[parentIndex];
+            if (states[parentIndex] == EXPECT_LEFT) {
+                left[parent] = i;
+                states[parentIndex] = EXPECT_RIGHT;
+            } else {
+                right[parent] = i;
+                states[parentIndex] = RIGHT_ATTACHED;
+            }
+
+            if (i != NO_NODE) {
+                push(i);
+            } else {
+                while (top > 0 && states[top - 1] == RIGHT_ATTACHED) {
+                    int cur = stack[--top];
+                    size[cur] = 1 + (left[cur] == NO_NODE ? 0 : size[left[cur]])
+                            + (right[cur] == NO_NODE ? 0 : size[right[cur]]);
+                }
+                if (top == 0) {
+                    done = true;
+                }
+            }
+        }
+
+        private void push(int i) {
+            if (top == stack.length) {
+                stack = Arrays.copyOf(stack, top * 2);
+                states = Arrays.copyOf(states, top * 2);
+            }
+            stack[top] = i;
+            states[top] = EXPECT_LEFT;
+            top++;
+        }
+
+        CompactBiTree build(boolean direct) {
+            CompactBiTree tree = new CompactBiTree(count, height, dictionaryOf(ids), direct);
+            tree.left.put(left, 0, count);
+            tree.right.put(right, 0, count);
+            tree.label.put(label, 0, count);
+            tree.depth.put(depth, 0, count);
+            tree.size.put(size, 0, count);
+            return tree;
+        }
+    }
+}
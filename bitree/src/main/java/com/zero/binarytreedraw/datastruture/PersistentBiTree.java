@@ -0,0 +1,444 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 不可变的二叉树，修改时只复制从根到被修改节点的路径，其余子树与旧版本共用
+ * <p>
+ * 节点按先序编号寻址，借助子树大小在 O(树高) 内找到节点。每次修改返回新的版本，
+ * 旧版本保持不变，可以不加锁地在线程之间传递，也可以保留大量历史版本。
+ * 节点只保存与所在位置无关的 size / height，层数由路径长度得到。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public final class PersistentBiTree {
+
+    private static final AtomicLong sVersions = new AtomicLong();
+
+    public static final PersistentBiTree EMPTY = new PersistentBiTree(null);
+
+    public static final class Node {
+
+        public final String data;
+
+        public final Node leftChild;
+
+        public final Node rightChild;
+
+        public final int size;
+
+        public final int height;
+
+        Node(String data, Node leftChild, Node rightChild) {
+            this.data = data;
+            this.leftChild = leftChild;
+            this.rightChild = rightChild;
+            this.size = 1 + sizeOf(leftChild) + sizeOf(rightChild);
+            this.height = 1 + Math.max(heightOf(leftChild), heightOf(rightChild));
+        }
+    }
+
+    private final Node root;
+
+    private final long version;
+
+    /**
+     * 按版本缓存的派生数据，用软引用保存，保留很多历史版本时可以被回收
+     */
+    private Map<Object, SoftReference<Object>> cache;
+
+    private PersistentBiTree(Node root) {
+        this.root = root;
+        this.version = sVersions.incrementAndGet();
+    }
+
+    public static PersistentBiTree parse(CharSequence src) {
+        return of(BiTreeParser.feed(src, new Builder()).root);
+    }
+
+    public static PersistentBiTree parse(String[] elems) {
+        return of(BiTreeParser.feed(elems, new Builder()).root);
+    }
+
+    /**
+     * 复制一棵可变的树，之后两者互不影响
+     */
+    public static PersistentBiTree from(BiTree biTree) {
+        BiNode rootNode = biTree.getRoot();
+        if (rootNode == null) {
+            return EMPTY;
+        }
+        //后序遍历，孩子先于父节点创建
+        BiNode[] stack = new BiNode[rootNode.height + 1];
+        Node[] done = new Node[rootNode.height + 2];
+        int top = 0;
+        int doneTop = 0;
+        stack[top++] = rootNode;
+        BiNode last = null;
+        while (top > 0) {
+            BiNode cur = stack[top - 1];
+            BiNode next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+
+            if (next != null) {
+                stack[top++] = next;
+            } else {
+                Node right = cur.rightChild == null ? null : done[--doneTop];
+                Node left = cur.leftChild == null ? null : done[--doneTop];
+                done[doneTop++] = new Node(cur.data, left, right);
+                top--;
+            }
+            last = cur;
+        }
+        return new PersistentBiTree(done[0]);
+    }
+
+    private static PersistentBiTree of(Node root) {
+        return root == null ? EMPTY : new PersistentBiTree(root);
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * 全局递增的版本号，不同的树版本号一定不同
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNodeCount() {
+        return sizeOf(root);
+    }
+
+    public int height() {
+        return heightOf(root);
+    }
+
+    public Node getNode(int index) {
+        checkIndex(index);
+        Node cur = root;
+        while (index > 0) {
+            index--;
+            int leftSize = sizeOf(cur.leftChild);
+            if (index < leftSize) {
+                cur = cur.leftChild;
+            } else {
+                index -= leftSize;
+                cur = cur.rightChild;
+            }
+        }
+        return cur;
+    }
+
+    /**
+     * 先序编号为 index 的节点所在的层，根节点为第 1 层
+     */
+    public int getLevel(int index) {
+        checkIndex(index);
+        return path(index, null, null);
+    }
+
+    public PersistentBiTree setLabel(int index, String label) {
+        Node target = getNode(index);
+        return replace(index, new Node(label, target.leftChild, target.rightChild));
+    }
+
+    /**
+     * 在 index 节点和它原来的左子树之间插入新节点，原来的左子树成为新节点的左子树
+     */
+    public PersistentBiTree insertLeft(int index, String label) {
+        Node target = getNode(index);
+        Node inserted = new Node(label, target.leftChild, null);
+        return replace(index, new Node(target.data, inserted, target.rightChild));
+    }
+
+    /**
+     * 在 index 节点和它原来的右子树之间插入新节点，原来的右子树成为新节点的右子树
+     */
+    public PersistentBiTree insertRight(int index, String label) {
+        Node target = getNode(index);
+        Node inserted = new Node(label, null, target.rightChild);
+        return replace(index, new Node(target.data, target.leftChild, inserted));
+    }
+
+    /**
+     * 删除以 index 为根的整棵子树
+     */
+    public PersistentBiTree removeSubtree(int index) {
+        checkIndex(index);
+        return replace(index, null);
+    }
+
+    /**
+     * 转换成可变的 BiTree，两者之后互不影响
+     */
+    public BiTree toBiTree() {
+        if (root == null) {
+            return new BiTree((BiNode) null);
+        }
+        Node[] stack = new Node[root.height + 1];
+        BiNode[] copies = new BiNode[root.height + 1];
+        int top = 0;
+        BiNode rootCopy = copy(root);
+        stack[top] = root;
+        copies[top] = rootCopy;
+        top++;
+        while (top > 0) {
+            top--;
+            Node node = stack[top];
+            BiNode biNode = copies[top];
+            if (node.rightChild != null) {
+                biNode.rightChild = copy(node.rightChild);
+                stack[top] = node.rightChild;
+                copies[top] = biNode.rightChild;
+                top++;
+            }
+            if (node.leftChild != null) {
+                biNode.leftChild = copy(node.leftChild);
+                stack[top] = node.leftChild;
+                copies[top] = biNode.leftChild;
+                top++;
+            }
+        }
+        return new BiTree(rootCopy);
+    }
+
+    /**
+     * 读取按版本缓存的数据，没有或已被回收时返回 null
+     */
+    public synchronized Object getCached(Object key) {
+        if (cache == null) {
+            return null;
+        }
+        SoftReference<Object> ref = cache.get(key);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * 缓存由这个版本算出的数据（例如布局），树不可变，同一个 key 只需计算一次
+     */
+    public synchronized void putCached(Object key, Object value) {
+        if (cache == null) {
+            cache = new HashMap<>(4);
+        }
+        cache.put(key, new SoftReference<>(value));
+    }
+
+    public String getPreOrderTraversal() {
+        StringBuilder sb = new StringBuilder();
+        if (root == null) {
+            return "";
+        }
+        Node[] stack = new Node[root.height + 1];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            sb.append(node.data);
+            if (node.rightChild != null) {
+                stack[top++] = node.rightChild;
+            }
+            if (node.leftChild != null) {
+                stack[top++] = node.leftChild;
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getInOrderTraversal() {
+        StringBuilder sb = new StringBuilder();
+        Node[] stack = new Node[height() + 1];
+        int top = 0;
+        Node cur = root;
+        while (cur != null || top > 0) {
+            while (cur != null) {
+                stack[top++] = cur;
+                cur = cur.leftChild;
+            }
+            cur = stack[--top];
+            sb.append(cur.data);
+            cur = cur.rightChild;
+        }
+        return sb.toString();
+    }
+
+    public String getPostOrderTraversal() {
+        StringBuilder sb = new StringBuilder();
+        if (root == null) {
+            return "";
+        }
+        Node[] stack = new Node[root.height + 1];
+        int top = 0;
+        stack[top++] = root;
+        Node last = null;
+        while (top > 0) {
+            Node cur = stack[top - 1];
+            Node next = null;
+            if (last == null || last.leftChild == cur || last.rightChild == cur) {
+                next = cur.leftChild != null ? cur.leftChild : cur.rightChild;
+            } else if (last == cur.leftChild) {
+                next = cur.rightChild;
+            }
+            if (next != null) {
+                stack[top++] = next;
+            } else {
+                sb.append(cur.data);
+                top--;
+            }
+            last = cur;
+        }
+        return sb.toString();
+    }
+
+    public String getLevelOrderTraversal() {
+        StringBuilder sb = new StringBuilder();
+        if (root == null) {
+            return "";
+        }
+        Node[] queue = new Node[root.size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            Node node = queue[head++];
+            sb.append(node.data);
+            if (node.leftChild != null) {
+                queue[tail++] = node.leftChild;
+            }
+            if (node.rightChild != null) {
+                queue[tail++] = node.rightChild;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 用 replacement 替换先序编号为 index 的子树，只复制根到该节点路径上的节点
+     */
+    private PersistentBiTree replace(int index, Node replacement) {
+        int length = height() + 1;
+        Node[] nodes = new Node[length];
+        boolean[] wentLeft = new boolean[length];
+        int depth = path(index, nodes, wentLeft);
+
+        Node cur = replacement;
+        for (int k = depth - 2; k >= 0; k--) {
+            Node node = nodes[k];
+            cur = wentLeft[k] ? new Node(node.data, cur, node.rightChild) : new Node(node.data, node.leftChild, cur);
+        }
+        return of(cur);
+    }
+
+    /**
+     * 从根走到先序编号为 index 的节点，返回路径上的节点数；nodes 为 null 时只计数
+     */
+    private int path(int index, Node[] nodes, boolean[] wentLeft) {
+        Node cur = root;
+        int k = 0;
+        while (true) {
+            if (nodes != null) {
+                nodes[k] = cur;
+            }
+            if (index == 0) {
+                return k + 1;
+            }
+            index--;
+            int leftSize = sizeOf(cur.leftChild);
+            boolean left = index < leftSize;
+            if (wentLeft != null) {
+                wentLeft[k] = left;
+            }
+            if (left) {
+                cur = cur.leftChild;
+            } else {
+                index -= leftSize;
+                cur = cur.rightChild;
+            }
+            k++;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= getNodeCount()) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + getNodeCount());
+        }
+    }
+
+    private static BiNode copy(Node node) {
+        BiNode biNode = new BiNode();
+        biNode.data = node.data;
+        return biNode;
+    }
+
+    static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    static int heightOf(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * 先序流中父节点先于孩子到达，而节点不可变，所以把未完成的节点留在栈上，
+     * 两个孩子都到齐后再创建
+     */
+    private static final class Builder extends BiTreeParser.Sink {
+
+        private Node root;
+
+        private String[] labels = new String[16];
+
+        private Node[] lefts = new Node[16];
+
+        private byte[] states = new byte[16];
+
+        private int top;
+
+        @Override
+        void accept(String label) {
+            if (label != null) {
+                if (top == labels.length) {
+                    labels = Arrays.copyOf(labels, top * 2);
+                    lefts = Arrays.copyOf(lefts, top * 2);
+                    states = Arrays.copyOf(states, top * 2);
+                }
+                labels[top] = label;
+                lefts[top] = null;
+                states[top] = EXPECT_LEFT;
+                top++;
+                return;
+            }
+
+            Node child = null;
+            while (true) {
+                if (top == 0) {
+                    root = child;
+                    done = true;
+                    return;
+                }
+                int frame = top - 1;
+                if (states[frame] == EXPECT_LEFT) {
+                    lefts[frame] = child;
+                    states[frame] = EXPECT_RIGHT;
+                    return;
+                }
+                child = new Node(labels[frame], lefts[frame], child);
+                labels[frame] = null;
+                lefts[frame] = null;
+                top--;
+            }
+        }
+    }
+}
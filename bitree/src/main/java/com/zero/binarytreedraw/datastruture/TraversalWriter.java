@@ -0,0 +1,185 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 把遍历到的节点标签按分隔符连接，经过固定大小的缓冲区分块写出，不在内存中拼出整个结果
+ * <p>
+ * 作为 {@link BiNodeVisitor} 传给任意一种遍历，结束后调用 {@link #flush()}；
+ * 也可以直接使用 {@link BiTree#writePreOrderTraversal(TraversalWriter)} 等方法。
+ * 遍历回调不能抛出 IOException，写出失败时记下第一个异常并忽略之后的节点，在 flush 时抛出。
+ * <p>
+ * 除缓冲区外不保留任何内容，先序、中序、后序遍历的额外内存只有与树高成正比的栈；
+ * 层序遍历的队列与最宽一层的节点数成正比。
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class TraversalWriter implements BiNodeVisitor, Flushable {
+
+    /**
+     * 接收一块输出，chunk 在返回后会被复用，需要保留时自行复制
+     */
+    public interface ChunkSink {
+
+        void write(char[] chunk, int length) throws IOException;
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final ChunkSink sink;
+
+    private final String delimiter;
+
+    private final char[] buffer;
+
+    private int pos;
+
+    private boolean first = true;
+
+    private long nodeCount;
+
+    private IOException error;
+
+    public TraversalWriter(ChunkSink sink, String delimiter) {
+        this(sink, delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    public TraversalWriter(ChunkSink sink, String delimiter, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.sink = sink;
+        this.delimiter = delimiter == null ? "" : delimiter;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * 写到 Appendable，Writer 和 StringBuilder 直接写入字符数组，flush 时不会 flush out 本身
+     */
+    public static TraversalWriter to(Appendable out, String delimiter) {
+        return new TraversalWriter(new AppendableSink(out), delimiter);
+    }
+
+    /**
+     * 按 charset 编码后写到通道，编码器自己的缓冲区同样是固定大小；flush 会把已编码的字节全部写入通道，
+     * 但不会关闭通道
+     */
+    public static TraversalWriter to(WritableByteChannel channel, Charset charset, String delimiter) {
+        final Writer writer = Channels.newWriter(channel, charset.newEncoder(), DEFAULT_BUFFER_SIZE);
+        return new TraversalWriter(new ChunkSink() {
+            @Override
+            public void write(char[] chunk, int length) throws IOException {
+                writer.write(chunk, 0, length);
+                writer.flush();
+            }
+        }, delimiter);
+    }
+
+    @Override
+    public void visit(BiNode biNode) {
+        if (error != null) {
+            return;
+        }
+        try {
+            if (first) {
+                first = false;
+            } else {
+                put(delimiter);
+            }
+            put(String.valueOf(biNode.data));
+            nodeCount++;
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * 写出缓冲区中剩余的内容；之前的写出失败时抛出那次的异常
+     */
+    @Override
+    public void flush() throws IOException {
+        if (error == null && pos > 0) {
+            try {
+                drain();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * 已经写入的节点数
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 开始新的一次输出：丢弃缓冲区中未写出的内容和之前的异常
+     */
+    public void reset() {
+        pos = 0;
+        first = true;
+        nodeCount = 0;
+        error = null;
+    }
+
+    private void put(String s) throws IOException {
+        int length = s.length();
+        int from = 0;
+        while (from < length) {
+            if (pos == buffer.length) {
+                drain();
+            }
+            int n = Math.min(length - from, buffer.length - pos);
+            s.getChars(from, from + n, buffer, pos);
+            pos += n;
+            from += n;
+        }
+    }
+
+    private void drain() throws IOException {
+        sink.write(buffer, pos);
+        pos = 0;
+    }
+
+    private static final class AppendableSink implements ChunkSink {
+
+        private final Appendable out;
+
+        /**
+         * 包装的总是同一个缓冲区，只在数组变化时重新创建
+         */
+        private CharBuffer wrapped;
+
+        AppendableSink(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chunk, int length) throws IOException {
+            if (out instanceof Writer) {
+                ((Writer) out).write(chunk, 0, length);
+            } else if (out instanceof StringBuilder) {
+                ((StringBuilder) out).append(chunk, 0, length);
+            } else {
+                if (wrapped == null || wrapped.array() != chunk) {
+                    wrapped = CharBuffer.wrap(chunk);
+                }
+                wrapped.limit(length).position(0);
+                out.append(wrapped);
+            }
+        }
+    }
+}
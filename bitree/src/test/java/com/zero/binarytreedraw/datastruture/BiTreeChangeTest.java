@@ -0,0 +1,136 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * BiTree 的增量修改以及发出的变化通知
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeChangeTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    private final List<String> events = new ArrayList<>();
+
+    private final BiTreeChangeListener recorder = new BiTreeChangeListener() {
+        @Override
+        public void onSubtreeReplaced(BiTree biTree, int parentIndex, boolean isLeft, int index, int oldSize) {
+            events.add("replace " + parentIndex + (isLeft ? " L " : " R ") + index + " " + oldSize);
+        }
+
+        @Override
+        public void onLabelChanged(BiTree biTree, int index) {
+            events.add("label " + index);
+        }
+    };
+
+    private BiTree newTree() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        biTree.addChangeListener(recorder);
+        return biTree;
+    }
+
+    @Test
+    public void getNode_byPreOrderIndex() {
+        BiTree biTree = newTree();
+        String preOrder = biTree.getPreOrderTraversal();
+        for (int i = 0; i < preOrder.length(); i++) {
+            assertEquals(String.valueOf(preOrder.charAt(i)), biTree.getNode(i).data);
+        }
+    }
+
+    @Test
+    public void setLabel_notifies() {
+        BiTree biTree = newTree();
+        biTree.setLabel(5, "X");
+        assertEquals("ABDGEXFHI", biTree.getPreOrderTraversal());
+        assertEquals("[label 5]", events.toString());
+    }
+
+    @Test
+    public void insertLeft_keepsOldSubtreeBelowNewNode() {
+        BiTree biTree = newTree();
+        //B 的左子树 D-G 下移一层
+        biTree.insertLeft(1, "X");
+        assertEquals("ABXDGECFHI", biTree.getPreOrderTraversal());
+        assertEquals(10, biTree.getNodeCount());
+        assertEquals(5, biTree.height());
+        assertEquals(5, biTree.getLevel("G"));
+        assertEquals("[replace 1 L 2 2]", events.toString());
+    }
+
+    @Test
+    public void insertRight_onEmptySlot() {
+        BiTree biTree = newTree();
+        //E 是叶子，右孩子为空
+        biTree.insertRight(4, "X");
+        assertEquals("ABDGEXCFHI", biTree.getPreOrderTraversal());
+        assertEquals("[replace 4 R 5 0]", events.toString());
+    }
+
+    @Test
+    public void removeSubtree_updatesPathMetrics() {
+        BiTree biTree = newTree();
+        biTree.removeSubtree(1);
+        assertEquals("ACFHI", biTree.getPreOrderTraversal());
+        assertEquals(5, biTree.getNodeCount());
+        assertEquals(4, biTree.height());
+        assertEquals("[replace 0 L 1 4]", events.toString());
+    }
+
+    @Test
+    public void replaceSubtree_rightChild() {
+        BiTree biTree = newTree();
+        biTree.replaceSubtree(5, new BiTree("XY##Z##").getRoot());
+        assertEquals("ABDGEXYZ", biTree.getPreOrderTraversal());
+        assertEquals(2, biTree.getLevel("X"));
+        assertEquals(3, biTree.getLevel("Z"));
+        assertEquals("[replace 0 R 5 4]", events.toString());
+    }
+
+    @Test
+    public void replaceRoot_andCreate_notifyWholeTree() {
+        BiTree biTree = newTree();
+        biTree.replaceSubtree(0, null);
+        assertEquals(0, biTree.getNodeCount());
+        biTree.createBiTree("AB##C##");
+        assertEquals("[replace -1 L 0 9, replace -1 L 0 0]", events.toString());
+    }
+
+    @Test
+    public void removedListener_isNotNotified() {
+        BiTree biTree = newTree();
+        biTree.removeChangeListener(recorder);
+        biTree.setLabel(0, "X");
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void changeCount_coversLabelsAndStructure() {
+        BiTree biTree = newTree();
+        int unchanged = biTree.getChangeCount();
+        biTree.getPreOrderTraversal();
+        assertEquals(unchanged, biTree.getChangeCount());
+        biTree.setLabel(0, "X");
+        int labelled = biTree.getChangeCount();
+        assertTrue(labelled != unchanged);
+        biTree.removeSubtree(1);
+        int removed = biTree.getChangeCount();
+        assertTrue(removed != labelled);
+        biTree.updateMetrics();
+        assertTrue(biTree.getChangeCount() != removed);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfRange_throws() {
+        newTree().removeSubtree(9);
+    }
+}
@@ -0,0 +1,172 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 游标前后移动得到的节点序列与非递归遍历一致，随机树的种子固定以便复现
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeCursorTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    private static final int RUNS = 300;
+
+    private static final int MAX_SIZE = 200;
+
+    private static final int[] ORDERS = {BiTreeCursor.PRE_ORDER, BiTreeCursor.IN_ORDER,
+            BiTreeCursor.POST_ORDER, BiTreeCursor.LEVEL_ORDER};
+
+    @Test
+    public void example_matchesTraversalStrings() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        assertEquals(biTree.getPreOrderTraversal(), forward(biTree.cursor(BiTreeCursor.PRE_ORDER)));
+        assertEquals(biTree.getInOrderTraversal(), forward(biTree.cursor(BiTreeCursor.IN_ORDER)));
+        assertEquals(biTree.getPostOrderTraversal(), forward(biTree.cursor(BiTreeCursor.POST_ORDER)));
+        assertEquals(biTree.getLevelOrderTraversal(), forward(biTree.cursor(BiTreeCursor.LEVEL_ORDER)));
+    }
+
+    @Test
+    public void forwardAndBackward_matchTraversals() {
+        Random random = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            for (int order : ORDERS) {
+                List<BiNode> expected = visit(biTree, order);
+                BiTreeCursor cursor = biTree.cursor(order);
+                assertEquals(expected.size(), cursor.size());
+                for (int k = 0; k < expected.size(); k++) {
+                    assertTrue(cursor.hasNext());
+                    assertSame(expected.get(k), cursor.next());
+                    assertEquals(k, cursor.getPosition());
+                }
+                assertFalse(cursor.hasNext());
+                for (int k = expected.size() - 2; k >= 0; k--) {
+                    assertTrue(cursor.hasPrevious());
+                    assertSame(expected.get(k), cursor.previous());
+                }
+                assertFalse(cursor.hasPrevious());
+            }
+        }
+    }
+
+    @Test
+    public void lastAndIndex_matchTraversals() {
+        Random random = new Random(2);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            for (int order : ORDERS) {
+                List<BiNode> expected = visit(biTree, order);
+                BiTreeCursor cursor = biTree.cursor(order);
+                if (expected.isEmpty()) {
+                    assertFalse(cursor.hasNext());
+                    continue;
+                }
+                assertSame(expected.get(expected.size() - 1), cursor.seek(expected.size() - 1));
+                assertFalse(cursor.hasNext());
+                assertSame(biTree.getNode(cursor.currentIndex()), cursor.current());
+                while (cursor.hasPrevious()) {
+                    cursor.previous();
+                    assertSame(biTree.getNode(cursor.currentIndex()), cursor.current());
+                }
+                assertSame(expected.get(0), cursor.current());
+            }
+        }
+    }
+
+    @Test
+    public void preOrderPosition_isIndex() {
+        BiTreeCursor cursor = new BiTree(BITREE_EXAMPLE).cursor(BiTreeCursor.PRE_ORDER);
+        while (cursor.hasNext()) {
+            cursor.next();
+            assertEquals(cursor.getPosition(), cursor.currentIndex());
+        }
+    }
+
+    @Test
+    public void seek_randomPositions() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            for (int order : ORDERS) {
+                List<BiNode> expected = visit(biTree, order);
+                BiTreeCursor cursor = biTree.cursor(order);
+                for (int k = 0; k < 10 && !expected.isEmpty(); k++) {
+                    int position = random.nextInt(expected.size());
+                    assertSame(expected.get(position), cursor.seek(position));
+                    assertEquals(position, cursor.getPosition());
+                    assertSame(expected.get(position), cursor.current());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void modifiedTree_relinksNewCursors() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        BiTreeCursor cursor = biTree.cursor(BiTreeCursor.LEVEL_ORDER);
+        cursor.next();
+        biTree.insertRight(1, "X");
+        try {
+            cursor.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        assertEquals(biTree.getLevelOrderTraversal(), forward(biTree.cursor(BiTreeCursor.LEVEL_ORDER)));
+        assertEquals(biTree.getPreOrderTraversal(), forward(biTree.cursor(BiTreeCursor.PRE_ORDER)));
+    }
+
+    @Test
+    public void reset_startsOver() {
+        BiTreeCursor cursor = new BiTree(BITREE_EXAMPLE).cursor(BiTreeCursor.IN_ORDER);
+        cursor.seek(4);
+        cursor.reset();
+        assertNull(cursor.current());
+        assertEquals(-1, cursor.getPosition());
+        assertEquals(-1, cursor.currentIndex());
+        assertEquals("D", cursor.next().data);
+    }
+
+    private static String forward(BiTreeCursor cursor) {
+        StringBuilder builder = new StringBuilder();
+        while (cursor.hasNext()) {
+            builder.append(cursor.next().data);
+        }
+        return builder.toString();
+    }
+
+    private static List<BiNode> visit(BiTree biTree, int order) {
+        final List<BiNode> result = new ArrayList<>();
+        BiNodeVisitor visitor = new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                result.add(biNode);
+            }
+        };
+        switch (order) {
+            case BiTreeCursor.PRE_ORDER:
+                biTree.preOrder(visitor);
+                break;
+            case BiTreeCursor.IN_ORDER:
+                biTree.inOrder(visitor);
+                break;
+            case BiTreeCursor.POST_ORDER:
+                biTree.postOrder(visitor);
+                break;
+            default:
+                biTree.levelOrder(visitor);
+                break;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,154 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并行实现与顺序实现在随机树上结果一致，阈值取得很小以便拆分到底
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeParallelTest {
+
+    private static final int RUNS = 200;
+
+    private static final int MAX_SIZE = 300;
+
+    private static final int[] THRESHOLDS = {1, 2, 8, 64};
+
+    /**
+     * 工作线程是守护线程，整个测试共用，不需要关闭
+     */
+    private static final ForkJoinPool[] POOLS = {new ForkJoinPool(1), new ForkJoinPool(4)};
+
+    private final ForkJoinPool pool = POOLS[1];
+
+    @Test
+    public void traversals_matchSequential() {
+        Random random = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            BiTreeParallel parallel = new BiTreeParallel(pool, THRESHOLDS[run % THRESHOLDS.length]);
+            assertEquals(biTree.getPreOrderTraversal(), parallel.getPreOrderTraversal(biTree));
+            assertEquals(biTree.getInOrderTraversal(), parallel.getInOrderTraversal(biTree));
+            assertEquals(biTree.getPostOrderTraversal(), parallel.getPostOrderTraversal(biTree));
+        }
+    }
+
+    @Test
+    public void serialize_matchesInput() {
+        Random random = new Random(2);
+        for (int run = 0; run < RUNS; run++) {
+            String[] elems = RandomTrees.randomElems(random, MAX_SIZE);
+            StringBuilder expected = new StringBuilder();
+            for (String elem : elems) {
+                expected.append(elem == null ? "#" : elem);
+            }
+            BiTree biTree = new BiTree().createBiTree(elems);
+            BiTreeParallel parallel = new BiTreeParallel(pool, THRESHOLDS[run % THRESHOLDS.length]);
+            assertEquals(expected.toString(), parallel.serialize(biTree));
+        }
+    }
+
+    @Test
+    public void serialize_singleCharLabels_parsesBack() {
+        BiTree biTree = new BiTree("ABD#G##E##C#FH##I##");
+        String serialized = new BiTreeParallel(pool, 1).serialize(biTree);
+        assertEquals("ABD#G##E##C#FH##I##", serialized);
+        assertEquals(biTree.getInOrderTraversal(), new BiTree(serialized).getInOrderTraversal());
+    }
+
+    @Test
+    public void updateMetrics_matchesSequential() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            String[] elems = RandomTrees.randomElems(random, MAX_SIZE);
+            BiTree expected = new BiTree().createBiTree(elems);
+            BiTree biTree = new BiTree().createBiTree(elems);
+            RandomTrees.clearMetrics(biTree.getRoot());
+            new BiTreeParallel(POOLS[run % POOLS.length]).updateMetrics(biTree);
+            assertSameMetrics(expected.getRoot(), biTree.getRoot());
+        }
+    }
+
+    @Test
+    public void updateMetrics_invalidatesLikeSequential() {
+        BiTree biTree = new BiTree("ABD#G##E##C#FH##I##");
+        BiTreeCursor cursor = biTree.cursor(BiTreeCursor.LEVEL_ORDER);
+        cursor.next();
+        int changeCount = biTree.getChangeCount();
+
+        //直接改孩子之后由并行实现重新统计
+        biTree.getRoot().leftChild = null;
+        new BiTreeParallel(pool, 1).updateMetrics(biTree);
+        assertTrue(biTree.getChangeCount() != changeCount);
+        try {
+            cursor.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+        }
+        BiTreeCursor relinked = biTree.cursor(BiTreeCursor.LEVEL_ORDER);
+        StringBuilder labels = new StringBuilder();
+        while (relinked.hasNext()) {
+            labels.append(relinked.next().data);
+        }
+        assertEquals("ACFHI", labels.toString());
+    }
+
+    @Test
+    public void aggregate_matchesSequential() {
+        BiNodeAggregator<Integer> leaves = new BiNodeAggregator<Integer>() {
+            @Override
+            public Integer empty() {
+                return 0;
+            }
+
+            @Override
+            public Integer combine(BiNode biNode, Integer left, Integer right) {
+                boolean leaf = biNode.leftChild == null && biNode.rightChild == null;
+                return left + right + (leaf ? 1 : 0);
+            }
+        };
+        Random random = new Random(4);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            int expected = countLeaves(biTree.getRoot());
+            BiTreeParallel parallel = new BiTreeParallel(pool, THRESHOLDS[run % THRESHOLDS.length]);
+            assertEquals(expected, (int) parallel.aggregate(biTree, leaves));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void traverse_unknownOrder_throws() {
+        new BiTreeParallel(pool).traverse(new BiTree("A##"), 0);
+    }
+
+    private static void assertSameMetrics(BiNode expected, BiNode actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.depth, actual.depth);
+        assertEquals(expected.size, actual.size);
+        assertEquals(expected.height, actual.height);
+        assertSameMetrics(expected.leftChild, actual.leftChild);
+        assertSameMetrics(expected.rightChild, actual.rightChild);
+    }
+
+    private static int countLeaves(BiNode biNode) {
+        if (biNode == null) {
+            return 0;
+        }
+        if (biNode.leftChild == null && biNode.rightChild == null) {
+            return 1;
+        }
+        return countLeaves(biNode.leftChild) + countLeaves(biNode.rightChild);
+    }
+}
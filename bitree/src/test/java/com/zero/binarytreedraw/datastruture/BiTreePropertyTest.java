@@ -0,0 +1,287 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用随机生成的树检查各实现与递归参考实现一致，种子固定以便复现
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreePropertyTest {
+
+    private static final int RUNS = 300;
+
+    private static final int MAX_SIZE = 200;
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void traversals_matchRecursiveReference() {
+        Random random = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            BiNode root = biTree.getRoot();
+            assertEquals(collect(root, PRE), visit(biTree, PRE));
+            assertEquals(collect(root, IN), visit(biTree, IN));
+            assertEquals(collect(root, POST), visit(biTree, POST));
+            assertEquals(levelOrder(root), visit(biTree, LEVEL));
+        }
+    }
+
+    @Test
+    public void metrics_matchRecursiveReference() {
+        Random random = new Random(2);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            checkMetrics(biTree.getRoot(), 1);
+            assertEquals(size(biTree.getRoot()), biTree.getNodeCount());
+            assertEquals(height(biTree.getRoot()), biTree.height());
+
+            //清掉缓存值后重新统计应得到相同结果
+            RandomTrees.clearMetrics(biTree.getRoot());
+            biTree.updateMetrics();
+            checkMetrics(biTree.getRoot(), 1);
+        }
+    }
+
+    @Test
+    public void serialize_thenParse_roundTrips() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            String[] elems = RandomTrees.randomElems(random, MAX_SIZE);
+            BiTree biTree = new BiTree().createBiTree(elems);
+            List<String> serialized = new ArrayList<>();
+            serialize(biTree.getRoot(), serialized);
+            BiTree parsed = new BiTree().createBiTree(serialized.toArray(new String[0]));
+            List<String> again = new ArrayList<>();
+            serialize(parsed.getRoot(), again);
+            assertEquals(serialized, again);
+        }
+    }
+
+    @Test
+    public void compactTree_matchesBiTree() throws IOException {
+        Random random = new Random(4);
+        for (int run = 0; run < RUNS; run++) {
+            BiTree biTree = new BiTree().createBiTree(RandomTrees.randomElems(random, MAX_SIZE));
+            boolean direct = random.nextBoolean();
+            checkCompact(biTree, CompactBiTree.from(biTree, direct));
+
+            File file = folder.newFile();
+            BiTreeFile.write(biTree, file);
+            checkCompact(biTree, BiTreeFile.open(file));
+        }
+    }
+
+    @Test
+    public void corruptHeader_failsToOpen() throws IOException {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        //height 为 0、height 超过节点数
+        int[][] patches = {{12, 0}, {12, biTree.getNodeCount() + 1}};
+        for (int[] patch : patches) {
+            File file = patchedFile(biTree, patch);
+            try {
+                BiTreeFile.open(file);
+                fail("offset " + patch[0]);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void corruptNodes_failOnAccess() throws IOException {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        int count = biTree.getNodeCount();
+        int left = 32;
+        int right = left + count * 4;
+        int label = right + count * 4;
+        int depth = label + count * 4;
+        int size = depth + count * 4;
+        int dictionary = size + count * 4;
+        //孩子越界、左右孩子相同、标签编号越界、层不连续、子树大小不符、字典偏移越界
+        int[][] patches = {{left, count}, {right, 1}, {label + 8, count}, {depth + 4, 5},
+                {size + 8, 1}, {dictionary + 4, 1 << 20}};
+        for (int[] patch : patches) {
+            CompactBiTree compact = BiTreeFile.open(patchedFile(biTree, patch));
+            try {
+                compact.getInOrderTraversal();
+                compact.getPostOrderTraversal();
+                compact.getLevelOrderTraversal();
+                fail("offset " + patch[0]);
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+
+    /**
+     * 写出 biTree 后把文件中 patch[0] 处的 int 改为 patch[1]
+     */
+    private File patchedFile(BiTree biTree, int[] patch) throws IOException {
+        File file = folder.newFile();
+        BiTreeFile.write(biTree, file);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(patch[0]);
+            raf.writeInt(Integer.reverseBytes(patch[1]));
+        } finally {
+            raf.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void compactParse_matchesBiTree() {
+        Random random = new Random(5);
+        for (int run = 0; run < RUNS; run++) {
+            StringBuilder sb = new StringBuilder();
+            for (String elem : RandomTrees.randomElems(random, MAX_SIZE)) {
+                sb.append(elem == null ? '#' : elem.charAt(elem.length() - 1));
+            }
+            BiTree biTree = new BiTree(sb);
+            checkCompact(biTree, CompactBiTree.parse(sb, random.nextBoolean()));
+        }
+    }
+
+    private static void checkCompact(BiTree biTree, CompactBiTree compact) {
+        assertEquals(biTree.getNodeCount(), compact.getNodeCount());
+        assertEquals(biTree.height(), compact.height());
+        assertEquals(biTree.getPreOrderTraversal(), compact.getPreOrderTraversal());
+        assertEquals(biTree.getInOrderTraversal(), compact.getInOrderTraversal());
+        assertEquals(biTree.getPostOrderTraversal(), compact.getPostOrderTraversal());
+        assertEquals(biTree.getLevelOrderTraversal(), compact.getLevelOrderTraversal());
+
+        //紧凑存储按先序编号，逐个比较层数和子树大小
+        final List<BiNode> nodes = new ArrayList<>();
+        biTree.preOrder(new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                nodes.add(biNode);
+            }
+        });
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(nodes.get(i).data, compact.getLabel(i));
+            assertEquals(nodes.get(i).depth, compact.getLevel(i));
+            assertEquals(nodes.get(i).size, compact.getSubtreeSize(i));
+        }
+    }
+
+    private static final int PRE = 0;
+    private static final int IN = 1;
+    private static final int POST = 2;
+    private static final int LEVEL = 3;
+
+    private static List<String> visit(BiTree biTree, int order) {
+        final List<String> result = new ArrayList<>();
+        BiNodeVisitor visitor = new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                result.add(biNode.data);
+            }
+        };
+        switch (order) {
+            case PRE:
+                biTree.preOrder(visitor);
+                break;
+            case IN:
+                biTree.inOrder(visitor);
+                break;
+            case POST:
+                biTree.postOrder(visitor);
+                break;
+            default:
+                biTree.levelOrder(visitor);
+                break;
+        }
+        return result;
+    }
+
+    private static List<String> collect(BiNode biNode, int order) {
+        List<String> result = new ArrayList<>();
+        collect(biNode, order, result);
+        return result;
+    }
+
+    private static void collect(BiNode biNode, int order, List<String> result) {
+        if (biNode == null) {
+            return;
+        }
+        if (order == PRE) {
+            result.add(biNode.data);
+        }
+        collect(biNode.leftChild, order, result);
+        if (order == IN) {
+            result.add(biNode.data);
+        }
+        collect(biNode.rightChild, order, result);
+        if (order == POST) {
+            result.add(biNode.data);
+        }
+    }
+
+    private static List<String> levelOrder(BiNode root) {
+        List<String> result = new ArrayList<>();
+        List<BiNode> level = new ArrayList<>();
+        if (root != null) {
+            level.add(root);
+        }
+        while (!level.isEmpty()) {
+            List<BiNode> next = new ArrayList<>();
+            for (BiNode biNode : level) {
+                result.add(biNode.data);
+                if (biNode.leftChild != null) {
+                    next.add(biNode.leftChild);
+                }
+                if (biNode.rightChild != null) {
+                    next.add(biNode.rightChild);
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    private static void serialize(BiNode biNode, List<String> out) {
+        if (biNode == null) {
+            out.add(null);
+            return;
+        }
+        out.add(biNode.data);
+        serialize(biNode.leftChild, out);
+        serialize(biNode.rightChild, out);
+    }
+
+    private static int size(BiNode biNode) {
+        return biNode == null ? 0 : 1 + size(biNode.leftChild) + size(biNode.rightChild);
+    }
+
+    private static int height(BiNode biNode) {
+        return biNode == null ? 0 : 1 + Math.max(height(biNode.leftChild), height(biNode.rightChild));
+    }
+
+    private static void checkMetrics(BiNode biNode, int depth) {
+        if (biNode == null) {
+            return;
+        }
+        assertEquals(depth, biNode.depth);
+        assertEquals(size(biNode), biNode.size);
+        assertEquals(height(biNode), biNode.height);
+        checkMetrics(biNode.leftChild, depth + 1);
+        checkMetrics(biNode.rightChild, depth + 1);
+    }
+}
@@ -0,0 +1,132 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * BiTree 的建树、遍历和统计
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class BiTreeTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    @Test
+    public void traversals_matchExample() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        assertEquals("ABDGECFHI", biTree.getPreOrderTraversal());
+        assertEquals("DGBEACHFI", biTree.getInOrderTraversal());
+        assertEquals("GDEBHIFCA", biTree.getPostOrderTraversal());
+        assertEquals("ABCDEFGHI", biTree.getLevelOrderTraversal());
+    }
+
+    @Test
+    public void metrics_matchExample() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        assertEquals(9, biTree.getNodeCount());
+        assertEquals(4, biTree.height());
+        assertEquals(1, biTree.getLevel("A"));
+        assertEquals(3, biTree.getLevel("F"));
+        assertEquals(4, biTree.getLevel("G"));
+        assertEquals(0, biTree.getLevel("Z"));
+        assertNull(biTree.find("Z"));
+        assertEquals(4, biTree.find("C").size);
+    }
+
+    @Test
+    public void emptyTree() {
+        BiTree biTree = new BiTree("#");
+        assertNull(biTree.getRoot());
+        assertEquals(0, biTree.getNodeCount());
+        assertEquals(0, biTree.height());
+        assertEquals("", biTree.getPreOrderTraversal());
+        assertEquals("", biTree.getLevelOrderTraversal());
+    }
+
+    @Test
+    public void truncatedInput_isPaddedWithNulls() {
+        BiTree biTree = new BiTree("ABD");
+        assertEquals("ABD", biTree.getPreOrderTraversal());
+        assertEquals(3, biTree.height());
+    }
+
+    @Test
+    public void trailingInput_isIgnored() {
+        BiTree biTree = new BiTree("A##BC");
+        assertEquals(1, biTree.getNodeCount());
+    }
+
+    @Test
+    public void allSources_buildTheSameTree() throws IOException {
+        String expected = new BiTree(BITREE_EXAMPLE).getInOrderTraversal();
+        String[] elems = new String[BITREE_EXAMPLE.length()];
+        for (int i = 0; i < elems.length; i++) {
+            elems[i] = String.valueOf(BITREE_EXAMPLE.charAt(i));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(BITREE_EXAMPLE.getBytes(Charset.forName("US-ASCII")));
+
+        assertEquals(expected, new BiTree().createBiTree(elems).getInOrderTraversal());
+        assertEquals(expected, new BiTree().createBiTree(new StringReader(BITREE_EXAMPLE)).getInOrderTraversal());
+        assertEquals(expected, new BiTree().createBiTree(buffer).getInOrderTraversal());
+    }
+
+    @Test
+    public void stringElements_keepMultiCharLabels() {
+        BiTree biTree = new BiTree().createBiTree(new String[]{"root", "left", null, "#", "right"});
+        assertEquals("root,left,right", join(biTree));
+        assertEquals(2, biTree.getLevel("right"));
+    }
+
+    @Test
+    public void updateMetrics_afterMutation() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        BiNode g = biTree.find("G");
+        g.leftChild = new BiNode();
+        g.leftChild.data = "J";
+        biTree.updateMetrics();
+        assertEquals(10, biTree.getNodeCount());
+        assertEquals(5, biTree.height());
+        assertEquals(5, biTree.getLevel("J"));
+    }
+
+    @Test
+    public void deepSkewedTree_doesNotOverflowStack() {
+        int n = 1000000;
+        StringBuilder sb = new StringBuilder(2 * n + 1);
+        for (int i = 0; i < n; i++) {
+            sb.append('A');
+        }
+        for (int i = 0; i <= n; i++) {
+            sb.append('#');
+        }
+        BiTree biTree = new BiTree(sb);
+        assertEquals(n, biTree.getNodeCount());
+        assertEquals(n, biTree.height());
+        assertEquals(n, biTree.getPostOrderTraversal().length());
+        biTree.updateMetrics();
+        assertEquals(n, biTree.height());
+    }
+
+    private static String join(BiTree biTree) {
+        final StringBuilder sb = new StringBuilder();
+        biTree.preOrder(new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(biNode.data);
+            }
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PersistentBiTree 的修改、结构共享和缓存
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class PersistentBiTreeTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    @Test
+    public void parse_matchesBiTree() {
+        PersistentBiTree tree = PersistentBiTree.parse(BITREE_EXAMPLE);
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        assertEquals(biTree.getPreOrderTraversal(), tree.getPreOrderTraversal());
+        assertEquals(biTree.getInOrderTraversal(), tree.getInOrderTraversal());
+        assertEquals(biTree.getPostOrderTraversal(), tree.getPostOrderTraversal());
+        assertEquals(biTree.getLevelOrderTraversal(), tree.getLevelOrderTraversal());
+        assertEquals(9, tree.getNodeCount());
+        assertEquals(4, tree.height());
+        assertEquals("G", tree.getNode(3).data);
+        assertEquals(4, tree.getLevel(3));
+        assertSame(PersistentBiTree.EMPTY, PersistentBiTree.parse("#"));
+    }
+
+    @Test
+    public void setLabel_copiesOnlyThePath() {
+        PersistentBiTree v1 = PersistentBiTree.parse(BITREE_EXAMPLE);
+        //G 的路径是 A -> B -> D -> G
+        PersistentBiTree v2 = v1.setLabel(3, "X");
+
+        assertEquals("ABDGECFHI", v1.getPreOrderTraversal());
+        assertEquals("ABDXECFHI", v2.getPreOrderTraversal());
+        assertNotSame(v1.getRoot(), v2.getRoot());
+        assertNotSame(v1.getRoot().leftChild, v2.getRoot().leftChild);
+        //路径以外的子树与旧版本共用
+        assertSame(v1.getRoot().rightChild, v2.getRoot().rightChild);
+        assertSame(v1.getRoot().leftChild.rightChild, v2.getRoot().leftChild.rightChild);
+        assertTrue(v2.getVersion() > v1.getVersion());
+    }
+
+    @Test
+    public void insertAndRemove() {
+        PersistentBiTree v1 = PersistentBiTree.parse(BITREE_EXAMPLE);
+        PersistentBiTree v2 = v1.insertLeft(0, "L");
+        assertEquals("ALBDGECFHI", v2.getPreOrderTraversal());
+        assertEquals(5, v2.height());
+        assertEquals(10, v2.getNodeCount());
+
+        PersistentBiTree v3 = v2.insertRight(5, "R");
+        assertEquals("ALBDGERCFHI", v3.getPreOrderTraversal());
+
+        PersistentBiTree v4 = v3.removeSubtree(1);
+        assertEquals("ACFHI", v4.getPreOrderTraversal());
+        assertEquals(4, v4.height());
+        assertSame(PersistentBiTree.EMPTY, v4.removeSubtree(0));
+
+        //旧版本都没有变化
+        assertEquals("ABDGECFHI", v1.getPreOrderTraversal());
+        assertEquals(9, v1.getNodeCount());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfRange_throws() {
+        PersistentBiTree.parse(BITREE_EXAMPLE).setLabel(9, "X");
+    }
+
+    @Test
+    public void randomEdits_matchMutableTree() {
+        Random random = new Random(7);
+        for (int run = 0; run < 100; run++) {
+            BiTree model = new BiTree("ABD#G##E##C#FH##I##");
+            PersistentBiTree tree = PersistentBiTree.from(model);
+            List<PersistentBiTree> history = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int step = 0; step < 40 && tree.getNodeCount() > 0; step++) {
+                history.add(tree);
+                expected.add(model.getInOrderTraversal());
+
+                int index = random.nextInt(tree.getNodeCount());
+                BiNode target = nodeAt(model, index);
+                String label = String.valueOf((char) ('a' + random.nextInt(26)));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        tree = tree.setLabel(index, label);
+                        target.data = label;
+                        break;
+                    case 1:
+                        tree = tree.insertLeft(index, label);
+                        BiNode left = new BiNode();
+                        left.data = label;
+                        left.leftChild = target.leftChild;
+                        target.leftChild = left;
+                        break;
+                    case 2:
+                        tree = tree.insertRight(index, label);
+                        BiNode right = new BiNode();
+                        right.data = label;
+                        right.rightChild = target.rightChild;
+                        target.rightChild = right;
+                        break;
+                    default:
+                        if (index == 0) {
+                            continue;
+                        }
+                        tree = tree.removeSubtree(index);
+                        BiNode parent = parentOf(model, target);
+                        if (parent.leftChild == target) {
+                            parent.leftChild = null;
+                        } else {
+                            parent.rightChild = null;
+                        }
+                        break;
+                }
+                model.updateMetrics();
+                assertEquals(model.getPreOrderTraversal(), tree.getPreOrderTraversal());
+                assertEquals(model.getInOrderTraversal(), tree.getInOrderTraversal());
+                assertEquals(model.getNodeCount(), tree.getNodeCount());
+                assertEquals(model.height(), tree.height());
+                assertEquals(model.getLevelOrderTraversal(), tree.toBiTree().getLevelOrderTraversal());
+            }
+            //历史版本保持原样
+            for (int k = 0; k < history.size(); k++) {
+                assertEquals(expected.get(k), history.get(k).getInOrderTraversal());
+            }
+        }
+    }
+
+    @Test
+    public void cache_isPerVersion() {
+        PersistentBiTree v1 = PersistentBiTree.parse(BITREE_EXAMPLE);
+        PersistentBiTree v2 = v1.setLabel(0, "Z");
+        Object key = new Object();
+        String value = "layout";
+        v1.putCached(key, value);
+        assertSame(value, v1.getCached(key));
+        assertNull(v2.getCached(key));
+        assertNull(v1.getCached(new Object()));
+    }
+
+    private static BiNode nodeAt(BiTree biTree, final int index) {
+        final BiNode[] found = new BiNode[1];
+        final int[] counter = new int[1];
+        biTree.preOrder(new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                if (counter[0]++ == index) {
+                    found[0] = biNode;
+                }
+            }
+        });
+        return found[0];
+    }
+
+    private static BiNode parentOf(BiTree biTree, final BiNode child) {
+        final BiNode[] found = new BiNode[1];
+        biTree.preOrder(new BiNodeVisitor() {
+            @Override
+            public void visit(BiNode biNode) {
+                if (biNode.leftChild == child || biNode.rightChild == child) {
+                    found[0] = biNode;
+                }
+            }
+        });
+        return found[0];
+    }
+}
@@ -0,0 +1,57 @@
+package com.zero.binarytreedraw.datastruture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 随机测试共用的生成和清理方法
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+final class RandomTrees {
+
+    private RandomTrees() {
+    }
+
+    /**
+     * 随机形状的先序序列，节点数在 [0, maxSize] 中选取，左子树大小在 [0, n) 中均匀选取，偶尔生成单链；
+     * 空节点随机用 null 或 "#" 表示
+     */
+    static String[] randomElems(Random random, int maxSize) {
+        int size = random.nextInt(maxSize + 1);
+        boolean chain = random.nextInt(10) == 0;
+        List<String> elems = new ArrayList<>();
+        int[] stack = new int[size + 2];
+        int top = 0;
+        stack[top++] = size;
+        while (top > 0) {
+            int n = stack[--top];
+            if (n == 0) {
+                elems.add(random.nextBoolean() ? null : "#");
+                continue;
+            }
+            elems.add("n" + random.nextInt(50));
+            int left = chain ? (random.nextBoolean() ? n - 1 : 0) : random.nextInt(n);
+            stack[top++] = n - 1 - left;
+            stack[top++] = left;
+        }
+        return elems.toArray(new String[0]);
+    }
+
+    /**
+     * 把 depth / size / height 清零，用来确认它们确实被重新计算
+     */
+    static void clearMetrics(BiNode biNode) {
+        if (biNode == null) {
+            return;
+        }
+        biNode.depth = 0;
+        biNode.size = 0;
+        biNode.height = 0;
+        clearMetrics(biNode.leftChild);
+        clearMetrics(biNode.rightChild);
+    }
+}
@@ -0,0 +1,153 @@
+package com.zero.binarytreedraw.datastruture;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分块写出的遍历结果与一次拼出的字符串一致，缓冲区取得很小以便标签跨块
+ *
+ * @author zz
+ * @email zzerostar@163.com
+ * @date 2026/10/17
+ */
+public class TraversalWriterTest {
+
+    private static final String BITREE_EXAMPLE = "ABD#G##E##C#FH##I##";
+
+    @Test
+    public void noDelimiter_matchesTraversalStrings() throws IOException {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        for (int bufferSize = 1; bufferSize <= 4; bufferSize++) {
+            assertEquals(biTree.getPreOrderTraversal(), write(biTree, BiTreeParallel.PRE_ORDER, "", bufferSize));
+            assertEquals(biTree.getInOrderTraversal(), write(biTree, BiTreeParallel.IN_ORDER, "", bufferSize));
+            assertEquals(biTree.getPostOrderTraversal(), write(biTree, BiTreeParallel.POST_ORDER, "", bufferSize));
+            assertEquals(biTree.getLevelOrderTraversal(), write(biTree, 0, "", bufferSize));
+        }
+    }
+
+    @Test
+    public void delimiter_separatesMultiCharLabels() throws IOException {
+        BiTree biTree = new BiTree().createBiTree(new String[]{"root", "left", "#", "#", "right", "#", "#"});
+        assertEquals("root, left, right", write(biTree, BiTreeParallel.PRE_ORDER, ", ", 3));
+        assertEquals("left, root, right", write(biTree, BiTreeParallel.IN_ORDER, ", ", 3));
+        assertEquals("left, right, root", write(biTree, BiTreeParallel.POST_ORDER, ", ", 3));
+    }
+
+    @Test
+    public void emptyTree_writesNothing() throws IOException {
+        BiTree biTree = new BiTree("#");
+        StringBuilder out = new StringBuilder();
+        TraversalWriter writer = TraversalWriter.to(out, ",");
+        biTree.writePreOrderTraversal(writer);
+        assertEquals("", out.toString());
+        assertEquals(0, writer.getNodeCount());
+    }
+
+    @Test
+    public void writer_receivesChunksNoLargerThanBuffer() throws IOException {
+        Random random = new Random(1);
+        BiTree biTree = new BiTree(randomSource(random, 500));
+        final int[] maxChunk = new int[1];
+        final StringBuilder out = new StringBuilder();
+        TraversalWriter writer = new TraversalWriter(new TraversalWriter.ChunkSink() {
+            @Override
+            public void write(char[] chunk, int length) {
+                maxChunk[0] = Math.max(maxChunk[0], length);
+                out.append(chunk, 0, length);
+            }
+        }, "|", 16);
+        biTree.writeInOrderTraversal(writer);
+        assertTrue(maxChunk[0] <= 16);
+        assertEquals(500, writer.getNodeCount());
+        assertEquals(biTree.getInOrderTraversal(), out.toString().replace("|", ""));
+    }
+
+    @Test
+    public void javaIoWriter_receivesSameOutput() throws IOException {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        StringWriter out = new StringWriter();
+        biTree.writePostOrderTraversal(TraversalWriter.to(out, " "));
+        assertEquals("G D E B H I F C A", out.toString());
+    }
+
+    @Test
+    public void channel_encodesLabelsSplitAcrossChunks() throws IOException {
+        //包含代理对的标签，任意分块位置都要编码正确
+        String[] elems = {"根节点", "左🌳", "#", "#", "右", "#", "#"};
+        BiTree biTree = new BiTree().createBiTree(elems);
+        Charset utf8 = Charset.forName("UTF-8");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraversalWriter writer = TraversalWriter.to(Channels.newChannel(bytes), utf8, "/");
+        biTree.writePreOrderTraversal(writer);
+        assertEquals("根节点/左🌳/右", new String(bytes.toByteArray(), utf8));
+    }
+
+    @Test
+    public void sinkFailure_isThrownFromFlush() {
+        BiTree biTree = new BiTree(BITREE_EXAMPLE);
+        final IOException failure = new IOException("disk full");
+        final int[] calls = new int[1];
+        TraversalWriter writer = new TraversalWriter(new TraversalWriter.ChunkSink() {
+            @Override
+            public void write(char[] chunk, int length) throws IOException {
+                calls[0]++;
+                throw failure;
+            }
+        }, "", 2);
+        try {
+            biTree.writePreOrderTraversal(writer);
+            fail();
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        //第一次失败之后不再写出
+        assertEquals(1, calls[0]);
+    }
+
+    private static String write(BiTree biTree, int order, String delimiter, int bufferSize) throws IOException {
+        final StringBuilder out = new StringBuilder();
+        TraversalWriter writer = new TraversalWriter(new TraversalWriter.ChunkSink() {
+            @Override
+            public void write(char[] chunk, int length) {
+                out.append(chunk, 0, length);
+            }
+        }, delimiter, bufferSize);
+        if (order == BiTreeParallel.PRE_ORDER) {
+            biTree.writePreOrderTraversal(writer);
+        } else if (order == BiTreeParallel.IN_ORDER) {
+            biTree.writeInOrderTraversal(writer);
+        } else if (order == BiTreeParallel.POST_ORDER) {
+            biTree.writePostOrderTraversal(writer);
+        } else {
+            biTree.writeLevelOrderTraversal(writer);
+        }
+        return out.toString();
+    }
+
+    private static String randomSource(Random random, int size) {
+        StringBuilder builder = new StringBuilder();
+        int[] stack = new int[size + 2];
+        int top = 0;
+        stack[top++] = size;
+        while (top > 0) {
+            int n = stack[--top];
+            if (n == 0) {
+                builder.append(BiTreeParser.NULL_MARKER);
+                continue;
+            }
+            builder.append((char) ('A' + random.nextInt(26)));
+            int left = random.nextInt(n);
+            stack[top++] = n - 1 - left;
+            stack[top++] = left;
+        }
+        return builder.toString();
+    }
+}